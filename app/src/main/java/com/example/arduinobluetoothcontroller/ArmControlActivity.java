@@ -1,23 +1,31 @@
 package com.example.arduinobluetoothcontroller;
 
-import android.bluetooth.BluetoothDevice;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.os.SystemClock;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.arduinobluetoothcontroller.bluetooth.BluetoothController;
 import com.example.arduinobluetoothcontroller.bluetooth.BluetoothControllerProvider;
+import com.example.arduinobluetoothcontroller.control.ArmTrajectory;
+import com.example.arduinobluetoothcontroller.control.ControlLoop;
+import com.example.arduinobluetoothcontroller.control.ControlThreadFactory;
+import com.example.arduinobluetoothcontroller.control.JointJog;
+import com.example.arduinobluetoothcontroller.link.LinkWatchdog;
+import com.example.arduinobluetoothcontroller.protocol.MotionProfile;
+import com.example.arduinobluetoothcontroller.time.Clock;
+import com.example.arduinobluetoothcontroller.transport.Transport;
+import com.example.arduinobluetoothcontroller.ui.LogStoreProvider;
 import com.google.android.material.slider.Slider;
 
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class ArmControlActivity extends AppCompatActivity {
 
@@ -25,11 +33,32 @@ public class ArmControlActivity extends AppCompatActivity {
     private static final int MIN_ANGLE = 0;
     private static final int MAX_ANGLE = 180;
     private static final int DEFAULT_ANGLE = 90;
-
-    private final Handler armHandler = new Handler(Looper.getMainLooper());
-    private final android.util.SparseIntArray jointAngles = new android.util.SparseIntArray();
-
-    private BluetoothController bluetoothController;
+    private static final int JOINT_COUNT = 3;
+    private static final float LINK_VELOCITY_DEGREES_PER_SECOND = 90f;
+    private static final float BASE_JOG_VELOCITY_DEGREES_PER_SECOND = 45f;
+    // While a slider is dragged its target is replanned at most this often; the firmware
+    // interpolates in between.
+    private static final long REPLAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    // Firmware that interpolates MOV frames gets planned moves; otherwise the base is jogged and
+    // the sliders stream <ARM> angles as before.
+    private final JointJog baseJog = new JointJog(
+            MIN_ANGLE, MAX_ANGLE, DEFAULT_ANGLE, Clock.SYSTEM, this::onBaseAngleChanged);
+    private final ArmTrajectory trajectory = new ArmTrajectory(
+            JOINT_COUNT, MIN_ANGLE, MAX_ANGLE, DEFAULT_ANGLE, MotionProfile.S_CURVE,
+            LINK_VELOCITY_DEGREES_PER_SECOND, Clock.SYSTEM, this::sendArmMove);
+    private final AtomicIntegerArray requestedAngles = new AtomicIntegerArray(JOINT_COUNT);
+    // Owned by the arm loop thread.
+    private final long[] lastPlanNanos = new long[JOINT_COUNT];
+    private volatile int shownBaseAngle = DEFAULT_ANGLE;
+    private final Runnable baseAngleDisplayUpdate = () -> updateAngleDisplay(0, shownBaseAngle);
+    private final ControlLoop armLoop = new ControlLoop(
+            "arm-loop",
+            TimeUnit.MILLISECONDS.toNanos(ARM_INTERVAL_MS),
+            (tickIndex, nowNanos) -> stepArm(nowNanos),
+            new ControlThreadFactory("arm-loop"));
+
+    private volatile BluetoothController bluetoothController;
     private TextView statusText;
     private TextView baseAngleText;
     private TextView link1AngleText;
@@ -40,7 +69,7 @@ public class ArmControlActivity extends AppCompatActivity {
     private final BluetoothController.ConnectionListener connectionListener =
             new BluetoothController.ConnectionListener() {
                 @Override
-                public void onConnected(BluetoothDevice device) {
+                public void onConnected(Transport transport) {
                     updateStatusText();
                 }
 
@@ -53,6 +82,26 @@ public class ArmControlActivity extends AppCompatActivity {
                 public void onError(String message) {
                     Toast.makeText(ArmControlActivity.this, message, Toast.LENGTH_SHORT).show();
                 }
+
+                @Override
+                public void onLinkDegraded(LinkWatchdog.Reason reason) {
+                    Toast.makeText(ArmControlActivity.this,
+                            getString(R.string.link_degraded_message, reason),
+                            Toast.LENGTH_SHORT).show();
+                }
+
+                @Override
+                public void onLinkRecovered() {
+                    updateStatusText();
+                }
+
+                @Override
+                public void onReconnecting(int attempt, long delayMillis) {
+                    if (statusText != null) {
+                        statusText.setText(
+                                getString(R.string.bluetooth_status_reconnecting, attempt));
+                    }
+                }
             };
 
     @Override
@@ -66,6 +115,7 @@ public class ArmControlActivity extends AppCompatActivity {
             bluetoothController.addConnectionListener(connectionListener);
         }
 
+        armLoop.setErrorListener(this::onArmTickError);
         initViews();
         initializeAngles();
         initActions();
@@ -82,9 +132,9 @@ public class ArmControlActivity extends AppCompatActivity {
     }
 
     private void initializeAngles() {
-        jointAngles.put(0, DEFAULT_ANGLE);
-        jointAngles.put(1, DEFAULT_ANGLE);
-        jointAngles.put(2, DEFAULT_ANGLE);
+        for (int joint = 0; joint < JOINT_COUNT; joint++) {
+            requestedAngles.set(joint, DEFAULT_ANGLE);
+        }
         updateAngleDisplay(0, DEFAULT_ANGLE);
         updateAngleDisplay(1, DEFAULT_ANGLE);
         updateAngleDisplay(2, DEFAULT_ANGLE);
@@ -117,16 +167,29 @@ public class ArmControlActivity extends AppCompatActivity {
         if (slider == null) {
             return;
         }
-        int initial = jointAngles.get(jointId, DEFAULT_ANGLE);
-        slider.setValue(initial);
+        slider.setValue(requestedAngles.get(jointId));
         slider.addOnChangeListener((s, value, fromUser) -> {
             int angle = Math.round(value);
-            jointAngles.put(jointId, angle);
+            requestedAngles.set(jointId, angle);
             updateAngleDisplay(jointId, angle);
-            if (fromUser) {
+            if (fromUser && !armMovesEnabled()) {
                 sendArmCommand(jointId, angle);
             }
         });
+        // With planned moves the arm loop follows a drag; letting go sends the final target
+        // straight away.
+        slider.addOnSliderTouchListener(new Slider.OnSliderTouchListener() {
+            @Override
+            public void onStartTrackingTouch(@NonNull Slider s) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(@NonNull Slider s) {
+                if (armMovesEnabled()) {
+                    trajectory.moveTo(jointId, requestedAngles.get(jointId));
+                }
+            }
+        });
     }
 
     private void attachBaseControl(int viewId, int direction) {
@@ -135,58 +198,76 @@ public class ArmControlActivity extends AppCompatActivity {
             return;
         }
 
-        button.setOnTouchListener(new View.OnTouchListener() {
-            private final Runnable repeatTask = new Runnable() {
-                @Override
-                public void run() {
-                    long held = SystemClock.uptimeMillis() - touchStartTime;
-                    int step = calculateStep(held) * direction;
-                    applyBaseStep(step);
-                    armHandler.postDelayed(this, ARM_INTERVAL_MS);
-                }
-            };
-
-            private long touchStartTime;
-
-            @Override
-            public boolean onTouch(View v, MotionEvent event) {
-                switch (event.getAction()) {
-                    case MotionEvent.ACTION_DOWN:
-                        touchStartTime = SystemClock.uptimeMillis();
-                        armHandler.post(repeatTask);
-                        v.setPressed(true);
-                        return true;
-                    case MotionEvent.ACTION_UP:
-                    case MotionEvent.ACTION_CANCEL:
-                        armHandler.removeCallbacks(repeatTask);
-                        v.setPressed(false);
-                        return true;
-                    default:
-                        return false;
-                }
+        button.setOnTouchListener((v, event) -> {
+            switch (event.getAction()) {
+                case MotionEvent.ACTION_DOWN:
+                    if (armMovesEnabled()) {
+                        // One move towards the end stop; releasing stops the base where it is.
+                        trajectory.moveTo(0, direction > 0 ? MAX_ANGLE : MIN_ANGLE,
+                                BASE_JOG_VELOCITY_DEGREES_PER_SECOND);
+                    } else {
+                        baseJog.press(direction);
+                    }
+                    v.setPressed(true);
+                    return true;
+                case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_CANCEL:
+                    if (trajectory.isMoving(0)) {
+                        trajectory.hold(0);
+                    }
+                    baseJog.release(direction);
+                    v.setPressed(false);
+                    return true;
+                default:
+                    return false;
             }
         });
     }
 
-    private int calculateStep(long heldMillis) {
-        if (heldMillis > 2000) {
-            return 5;
-        } else if (heldMillis > 1000) {
-            return 2;
+    // Runs on the arm loop thread.
+    private void stepArm(long nowNanos) {
+        BluetoothController controller = bluetoothController;
+        if (controller == null) {
+            return;
+        }
+        armLoop.setPeriodNanos(controller.getSendRateController().getArm().getIntervalNanos());
+        if (!controller.isArmMovesEnabled()) {
+            baseJog.tick();
+            return;
+        }
+        for (int joint = 1; joint < JOINT_COUNT; joint++) {
+            int requested = requestedAngles.get(joint);
+            if (requested != trajectory.getTarget(joint)
+                    && nowNanos - lastPlanNanos[joint] >= REPLAN_INTERVAL_NANOS) {
+                lastPlanNanos[joint] = nowNanos;
+                trajectory.moveTo(joint, requested);
+            }
         }
-        return 1;
+        showBaseAngle(Math.round(trajectory.getPosition(0)));
     }
 
-    private void applyBaseStep(int delta) {
-        int jointId = 0;
-        int current = jointAngles.get(jointId, DEFAULT_ANGLE);
-        int updated = Math.max(MIN_ANGLE, Math.min(MAX_ANGLE, current + delta));
-        if (updated == current) {
-            return;
+    // Runs on the touch or arm loop thread.
+    private void onBaseAngleChanged(int angle) {
+        showBaseAngle(angle);
+        sendArmCommand(0, angle);
+    }
+
+    private void showBaseAngle(int angle) {
+        if (angle != shownBaseAngle) {
+            shownBaseAngle = angle;
+            runOnUiThread(baseAngleDisplayUpdate);
         }
-        jointAngles.put(jointId, updated);
-        updateAngleDisplay(jointId, updated);
-        sendArmCommand(jointId, updated);
+    }
+
+    private boolean armMovesEnabled() {
+        BluetoothController controller = bluetoothController;
+        return controller != null && controller.isArmMovesEnabled();
+    }
+
+    // Runs on the arm loop thread, which keeps ticking.
+    private void onArmTickError(long tickIndex, RuntimeException exception) {
+        runOnUiThread(() -> LogStoreProvider.getInstance(getApplicationContext())
+                .append("Arm tick " + tickIndex + " failed: " + exception));
     }
 
     private void updateAngleDisplay(int jointId, int angle) {
@@ -211,25 +292,45 @@ public class ArmControlActivity extends AppCompatActivity {
     }
 
     private void sendArmCommand(int jointId, int angle) {
-        if (bluetoothController != null) {
-            bluetoothController.sendCommand(
-                    String.format(Locale.US, "<ARM:%d:%d>", jointId, angle)
-            );
+        BluetoothController controller = bluetoothController;
+        if (controller != null) {
+            controller.sendArm(jointId, angle);
+        }
+    }
+
+    // Runs on the UI or arm loop thread.
+    private void sendArmMove(int jointId, int angle, int durationMillis, MotionProfile profile) {
+        BluetoothController controller = bluetoothController;
+        if (controller != null) {
+            controller.sendArmMove(jointId, angle, durationMillis, profile);
         }
     }
 
     private void sendGripperCommand(boolean grab) {
         if (bluetoothController != null) {
-            bluetoothController.sendCommand(
-                    String.format(Locale.US, "<GRP:%d>", grab ? 1 : 0)
-            );
+            bluetoothController.sendGripper(grab);
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        armLoop.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (trajectory.isMoving(0)) {
+            trajectory.hold(0);
         }
+        baseJog.releaseAll();
+        armLoop.stop();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        armHandler.removeCallbacksAndMessages(null);
         if (bluetoothController != null) {
             bluetoothController.removeConnectionListener(connectionListener);
         }
@@ -6,10 +6,9 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.os.SystemClock;
 import android.text.TextUtils;
+import android.view.Choreographer;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -24,7 +23,21 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.example.arduinobluetoothcontroller.bluetooth.BluetoothController;
 import com.example.arduinobluetoothcontroller.bluetooth.BluetoothControllerProvider;
+import com.example.arduinobluetoothcontroller.control.ControlLoop;
+import com.example.arduinobluetoothcontroller.control.ControlThreadFactory;
+import com.example.arduinobluetoothcontroller.control.DriveThrottle;
+import com.example.arduinobluetoothcontroller.control.HysteresisQuantizer;
+import com.example.arduinobluetoothcontroller.control.InputShaper;
+import com.example.arduinobluetoothcontroller.link.LatencyHistogram;
+import com.example.arduinobluetoothcontroller.link.LatencySnapshot;
+import com.example.arduinobluetoothcontroller.link.LinkWatchdog;
+import com.example.arduinobluetoothcontroller.link.SendRateController;
+import com.example.arduinobluetoothcontroller.telemetry.TelemetryConflator;
+import com.example.arduinobluetoothcontroller.time.Clock;
+import com.example.arduinobluetoothcontroller.transport.Transport;
 import com.example.arduinobluetoothcontroller.ui.LogDialogFragment;
+import com.example.arduinobluetoothcontroller.ui.LogStore;
+import com.example.arduinobluetoothcontroller.ui.LogStoreProvider;
 import com.example.arduinobluetoothcontroller.view.JoystickView;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
@@ -33,25 +46,98 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity {
 
-    private static final float DEAD_ZONE = 0.12f;
-    private static final int MAX_LOG_LINES = 200;
+    private static final int SPEED_STEP = 5;
+    private static final int ANGLE_STEP = 1;
+    private static final float QUANTIZE_HYSTERESIS = 0.35f;
     private static final long DRIVE_INTERVAL_MS = 80L;
+    private static final long LATENCY_REFRESH_MS = 500L;
+
+    private final DriveThrottle driveThrottle =
+            new DriveThrottle(0, 90, DriveThrottle.DEFAULT_HEARTBEAT_NANOS);
+    // Created once so the drive loop does not allocate a method reference every tick.
+    private final DriveThrottle.Sink driveSink = this::sendDrive;
+    private final ControlLoop driveLoop = new ControlLoop(
+            "drive-loop",
+            TimeUnit.MILLISECONDS.toNanos(DRIVE_INTERVAL_MS),
+            (tickIndex, nowNanos) -> flushDriveCommand(nowNanos),
+            new ControlThreadFactory("drive-loop"));
+    private final Runnable latencyRefresh = new Runnable() {
+        @Override
+        public void run() {
+            updateLatencyOverlay();
+            latencyTextView.postDelayed(this, LATENCY_REFRESH_MS);
+        }
+    };
+    // Telemetry reaches the UI at most once per display frame, however fast the firmware talks.
+    private final TelemetryConflator telemetryConflator =
+            new TelemetryConflator(Clock.SYSTEM, this::requestTelemetryFrame);
+    private final TelemetryConflator.Sink telemetrySink = new TelemetryConflator.Sink() {
+        @Override
+        public void onStat(int pwm, float tilt, int batteryMillivolts) {
+            updateDashboard(pwm, tilt, batteryMillivolts);
+        }
+
+        @Override
+        public void onLogs(String[] lines, int count) {
+            logStore.appendAll(lines, count);
+            latestLogText.setText(lines[count - 1]);
+        }
+    };
+    private final Choreographer.FrameCallback telemetryFrame =
+            frameTimeNanos -> telemetryConflator.dispatch(telemetrySink);
+    // Joystick samples and ticks share the touch event timebase (uptime).
+    private final InputShaper inputShaper = InputShaper.createDefault();
+    private final HysteresisQuantizer speedQuantizer =
+            new HysteresisQuantizer(SPEED_STEP, QUANTIZE_HYSTERESIS);
+    private final HysteresisQuantizer angleQuantizer =
+            new HysteresisQuantizer(ANGLE_STEP, QUANTIZE_HYSTERESIS);
+    private boolean shapingFramePosted;
+    private final Choreographer.FrameCallback shapingFrame = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            shapingFramePosted = false;
+            if (inputShaper.tick(TimeUnit.MILLISECONDS.toNanos(SystemClock.uptimeMillis()))) {
+                emitShapedDrive();
+                requestShapingFrame();
+            }
+        }
+    };
+    private final BluetoothController.TelemetryListener telemetryListener =
+            new BluetoothController.TelemetryListener() {
+                @Override
+                public void onStat(int pwm, float tilt, int batteryMillivolts) {
+                    telemetryConflator.postStat(pwm, tilt, batteryMillivolts);
+                }
 
-    private final Handler driveHandler = new Handler(Looper.getMainLooper());
-    private final ArrayList<String> logBuffer = new ArrayList<>();
-    private final BluetoothController.DataListener dataListener =
-            packet -> runOnUiThread(() -> handleIncomingPacket(packet));
+                @Override
+                public void onLog(CharSequence message) {
+                    telemetryConflator.postLog(message.toString());
+                }
+
+                @Override
+                public void onUnknownPacket(CharSequence packet) {
+                    telemetryConflator.postLog(packet.toString());
+                }
+            };
     private final BluetoothController.ConnectionListener connectionListener =
             new BluetoothController.ConnectionListener() {
                 @Override
-                public void onConnected(BluetoothDevice device) {
+                public void onConnected(Transport transport) {
                     statusTextView.setText(R.string.bluetooth_status_connected);
-                    macTextView.setText(device.getAddress());
+                    macTextView.setText(transport.getAddress());
                     connectButton.setText(R.string.disconnect);
-                    appendLog("Connected to " + device.getName());
+                    long recoveryNanos = bluetoothController.getLastRecoveryNanos();
+                    if (recoveryNanos >= 0) {
+                        appendLog("Reconnected to " + transport.getName() + " in "
+                                + TimeUnit.NANOSECONDS.toMillis(recoveryNanos) + " ms");
+                    } else {
+                        appendLog("Connected to " + transport.getName());
+                    }
+                    driveThrottle.reset();
                 }
 
                 @Override
@@ -66,9 +152,30 @@ public class MainActivity extends AppCompatActivity {
                 public void onError(String message) {
                     Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
                 }
+
+                @Override
+                public void onLinkDegraded(LinkWatchdog.Reason reason) {
+                    statusTextView.setText(R.string.bluetooth_status_degraded);
+                    appendLog(getString(R.string.link_degraded_message, reason));
+                }
+
+                @Override
+                public void onLinkRecovered() {
+                    statusTextView.setText(R.string.bluetooth_status_connected);
+                    appendLog("Link recovered.");
+                }
+
+                @Override
+                public void onReconnecting(int attempt, long delayMillis) {
+                    statusTextView.setText(
+                            getString(R.string.bluetooth_status_reconnecting, attempt));
+                    appendLog("Link lost, reconnect attempt " + attempt + " in "
+                            + delayMillis + " ms");
+                }
             };
 
-    private BluetoothController bluetoothController;
+    private volatile BluetoothController bluetoothController;
+    private LogStore logStore;
     private ActivityResultLauncher<String[]> permissionLauncher;
     private Runnable pendingPermissionAction;
 
@@ -83,12 +190,14 @@ public class MainActivity extends AppCompatActivity {
     private TextView tiltValueText;
     private TextView batteryValueText;
     private TextView latestLogText;
+    private TextView latencyTextView;
+    private TextView sendRateTextView;
+    private TextView telemetryDispatchTextView;
+    private TextView touchLatencyTextView;
     private JoystickView joystickView;
-
-    private int pendingDriveSpeed;
-    private int pendingDriveAngle = 90;
-    private boolean driveCommandScheduled = false;
-    private long nextDriveWindow = 0L;
+    private Choreographer choreographer;
+    private int shownSpeed = Integer.MIN_VALUE;
+    private int shownAngle = Integer.MIN_VALUE;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -101,6 +210,9 @@ public class MainActivity extends AppCompatActivity {
             return insets;
         });
 
+        logStore = LogStoreProvider.getInstance(getApplicationContext());
+        driveLoop.setErrorListener(this::onDriveTickError);
+        choreographer = Choreographer.getInstance();
         initViews();
         initBluetooth();
         initPermissionLauncher();
@@ -118,6 +230,10 @@ public class MainActivity extends AppCompatActivity {
         tiltValueText = findViewById(R.id.textTiltValue);
         batteryValueText = findViewById(R.id.textBatteryValue);
         latestLogText = findViewById(R.id.textLatestLog);
+        latencyTextView = findViewById(R.id.textLatency);
+        sendRateTextView = findViewById(R.id.textSendRate);
+        telemetryDispatchTextView = findViewById(R.id.textTelemetryDispatch);
+        touchLatencyTextView = findViewById(R.id.textTouchLatency);
         joystickView = findViewById(R.id.joystickView);
         openArmControlButton = findViewById(R.id.btnOpenArmControl);
     }
@@ -129,7 +245,7 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
         bluetoothController.addConnectionListener(connectionListener);
-        bluetoothController.addDataListener(dataListener);
+        bluetoothController.addTelemetryListener(telemetryListener);
     }
 
     private void initPermissionLauncher() {
@@ -167,6 +283,14 @@ public class MainActivity extends AppCompatActivity {
 
         joystickView.setOnJoystickChangeListener(this::handleJoystickInput);
 
+        latencyTextView.setOnClickListener(v -> {
+            if (bluetoothController != null) {
+                bluetoothController.setLatencyTrackingEnabled(
+                        !bluetoothController.isLatencyTrackingEnabled());
+                updateLatencyOverlay();
+            }
+        });
+
         if (openArmControlButton != null) {
             openArmControlButton.setOnClickListener(v ->
                     startActivity(new Intent(this, ArmControlActivity.class)));
@@ -226,109 +350,190 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void connectToDevice(BluetoothDevice device) {
+        BluetoothController controller;
+        try {
+            controller = BluetoothControllerProvider.select(getApplicationContext(), device);
+        } catch (IllegalStateException tooManyLinks) {
+            Toast.makeText(this, R.string.message_too_many_vehicles, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        BluetoothController previous = bluetoothController;
+        if (controller != previous) {
+            if (previous != null) {
+                // The joystick no longer drives the old vehicle, so leave it stopped.
+                previous.sendStop();
+                previous.removeTelemetryListener(telemetryListener);
+                previous.removeConnectionListener(connectionListener);
+            }
+            controller.addConnectionListener(connectionListener);
+            controller.addTelemetryListener(telemetryListener);
+            bluetoothController = controller;
+        }
         statusTextView.setText(R.string.bluetooth_status_connecting);
         macTextView.setText(device.getAddress());
-        if (bluetoothController != null) {
-            bluetoothController.connect(device);
-        }
+        controller.connect(device);
     }
 
     private void showLogDialog() {
-        LogDialogFragment.newInstance(new ArrayList<>(logBuffer))
-                .show(getSupportFragmentManager(), "logs");
+        LogDialogFragment.newInstance().show(getSupportFragmentManager(), "logs");
     }
 
-    private void handleJoystickInput(float x, float y) {
-        float processedX = applyDeadZone(x);
-        float processedY = applyDeadZone(y);
+    // Called for every touch sample. The shaper keeps settling on frame ticks while the stick
+    // is held still, since smoothing and slew limits depend on time passing.
+    private void handleJoystickInput(float x, float y, long eventTimeMillis) {
+        inputShaper.shape(x, y, TimeUnit.MILLISECONDS.toNanos(eventTimeMillis));
+        emitShapedDrive();
+        requestShapingFrame();
+    }
 
-        int direction = processedY >= 0 ? 1 : -1;
-        int pwm = (int) (Math.min(1f, Math.abs(processedY)) * 255f);
-        if (processedY == 0f) {
-            pwm = 0;
-            direction = 0;
+    private void requestShapingFrame() {
+        if (!shapingFramePosted && choreographer != null) {
+            shapingFramePosted = true;
+            choreographer.postFrameCallback(shapingFrame);
         }
+    }
 
-        int signedSpeed = direction * pwm;
-        int angle = 90 + Math.round(processedX * 45f);
+    // Only labels that changed are touched.
+    private void emitShapedDrive() {
+        int signedSpeed = speedQuantizer.quantize(inputShaper.getY() * 255f);
+        signedSpeed = Math.max(-255, Math.min(255, signedSpeed));
+        int angle = 90 + angleQuantizer.quantize(inputShaper.getX() * 45f);
         angle = Math.max(45, Math.min(135, angle));
 
-        speedValueText.setText(String.valueOf(signedSpeed));
-        angleValueText.setText(String.valueOf(angle));
+        if (signedSpeed != shownSpeed) {
+            shownSpeed = signedSpeed;
+            speedValueText.setText(String.valueOf(signedSpeed));
+        }
+        if (angle != shownAngle) {
+            shownAngle = angle;
+            angleValueText.setText(String.valueOf(angle));
+        }
 
         queueDriveCommand(signedSpeed, angle);
     }
 
     private void queueDriveCommand(int speed, int angle) {
-        pendingDriveSpeed = speed;
-        pendingDriveAngle = angle;
+        driveThrottle.update(speed, angle);
+    }
 
-        if (!driveCommandScheduled) {
-            driveCommandScheduled = true;
-            long delay = Math.max(0, nextDriveWindow - SystemClock.uptimeMillis());
-            driveHandler.postDelayed(this::flushDriveCommand, delay);
+    // Runs on the drive loop thread.
+    private void flushDriveCommand(long nowNanos) {
+        BluetoothController controller = bluetoothController;
+        if (controller != null) {
+            driveThrottle.flush(driveSink, nowNanos);
+            driveLoop.setPeriodNanos(
+                    controller.getSendRateController().getDrive().getIntervalNanos());
         }
     }
 
-    private void flushDriveCommand() {
-        driveCommandScheduled = false;
-        nextDriveWindow = SystemClock.uptimeMillis() + DRIVE_INTERVAL_MS;
-        if (bluetoothController != null) {
-            String command = String.format(Locale.US, "<DRV:%d:%d>", pendingDriveSpeed, pendingDriveAngle);
-            bluetoothController.sendCommand(command);
+    // Runs on the drive loop thread.
+    private void sendDrive(int speed, int angle) {
+        BluetoothController controller = bluetoothController;
+        if (controller != null) {
+            controller.sendDrive(speed, angle);
         }
     }
 
-    private float applyDeadZone(float value) {
-        return Math.abs(value) < DEAD_ZONE ? 0f : value;
+    private void updateDashboard(int pwm, float tilt, int batteryMillivolts) {
+        pwmValueText.setText(String.valueOf(pwm));
+        tiltValueText.setText(String.format(Locale.US, "%.1f", tilt));
+        batteryValueText.setText(String.format(Locale.US, "%.2fV", batteryMillivolts / 1000f));
     }
 
-    private void handleIncomingPacket(String packet) {
-        if (TextUtils.isEmpty(packet)) {
+    private void updateLatencyOverlay() {
+        updateSendRateOverlay();
+        updateTelemetryDispatchOverlay();
+        updateTouchLatencyOverlay();
+        if (bluetoothController == null || !bluetoothController.isLatencyTrackingEnabled()) {
+            latencyTextView.setText(R.string.latency_off);
+            return;
+        }
+        LatencySnapshot snapshot = bluetoothController.getLatencySnapshot();
+        if (snapshot.getCount() == 0) {
+            latencyTextView.setText(R.string.latency_waiting);
             return;
         }
+        latencyTextView.setText(getString(R.string.latency_format,
+                snapshot.getP50Micros() / 1000f,
+                snapshot.getP99Micros() / 1000f,
+                snapshot.getMaxMicros() / 1000f,
+                snapshot.getCount()));
+    }
 
-        if (packet.startsWith("<STAT:") && packet.endsWith(">")) {
-            String payload = packet.substring(1, packet.length() - 1);
-            String[] parts = payload.split(":");
-            if (parts.length >= 4) {
-                updateDashboard(parts[1], parts[2], parts[3]);
-            } else if (parts.length >= 3) {
-                updateDashboard(parts[1], parts[2], "0");
-            }
-        } else if (packet.startsWith("<LOG:") && packet.endsWith(">")) {
-            appendLog(packet.substring(5, packet.length() - 1));
-        } else {
-            appendLog(packet);
+    // Called from the reader thread; Choreographer accepts callbacks from any thread.
+    private void requestTelemetryFrame() {
+        choreographer.postFrameCallback(telemetryFrame);
+    }
+
+    private void updateTelemetryDispatchOverlay() {
+        telemetryDispatchTextView.setText(getString(R.string.telemetry_dispatch_format,
+                telemetryConflator.getFramesDispatched(),
+                telemetryConflator.getStatsConflated(),
+                telemetryConflator.getMeanLagNanos() / 1_000_000f,
+                telemetryConflator.getMaxLagNanos() / 1_000_000f));
+    }
+
+    private void updateTouchLatencyOverlay() {
+        LatencyHistogram latency = joystickView.getInputLatency();
+        if (latency.getCount() == 0) {
+            return;
+        }
+        touchLatencyTextView.setText(getString(R.string.touch_latency_format,
+                joystickView.getMoveEventCount(),
+                joystickView.getHistoricalSampleCount(),
+                latency.getPercentileMicros(50) / 1000f,
+                latency.getPercentileMicros(99) / 1000f));
+    }
+
+    private void updateSendRateOverlay() {
+        if (bluetoothController == null) {
+            return;
         }
+        SendRateController rate = bluetoothController.getSendRateController();
+        sendRateTextView.setText(getString(R.string.send_rate_format,
+                rate.getDrive().getRateHz(),
+                rate.getArm().getRateHz(),
+                rate.getThroughputBytesPerSecond(),
+                rate.getReason().name().toLowerCase(Locale.US).replace('_', ' ')));
     }
 
-    private void updateDashboard(String pwm, String tilt, String battery) {
-        pwmValueText.setText(pwm);
-        tiltValueText.setText(tilt);
-        String value = battery.endsWith("V") ? battery : battery + "V";
-        batteryValueText.setText(value);
+    // Runs on the drive loop thread, which keeps ticking.
+    private void onDriveTickError(long tickIndex, RuntimeException exception) {
+        runOnUiThread(() -> appendLog("Drive tick " + tickIndex + " failed: " + exception));
     }
 
     private void appendLog(String line) {
         if (line == null) {
             return;
         }
-        logBuffer.add(line);
-        if (logBuffer.size() > MAX_LOG_LINES) {
-            logBuffer.remove(0);
-        }
+        logStore.append(line);
         latestLogText.setText(line);
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        driveLoop.start();
+        latencyTextView.post(latencyRefresh);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        driveLoop.stop();
+        latencyTextView.removeCallbacks(latencyRefresh);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        driveHandler.removeCallbacksAndMessages(null);
+        choreographer.removeFrameCallback(telemetryFrame);
+        choreographer.removeFrameCallback(shapingFrame);
         if (bluetoothController != null) {
-            bluetoothController.removeDataListener(dataListener);
+            bluetoothController.removeTelemetryListener(telemetryListener);
             bluetoothController.removeConnectionListener(connectionListener);
             bluetoothController.disconnect();
         }
+        BluetoothControllerProvider.getManager(getApplicationContext()).disconnectAll();
     }
 }
\ No newline at end of file
@@ -1,20 +1,92 @@
 package com.example.arduinobluetoothcontroller.bluetooth;
 
+import android.bluetooth.BluetoothDevice;
 import android.content.Context;
 
+import com.example.arduinobluetoothcontroller.link.ReconnectPolicy;
+import com.example.arduinobluetoothcontroller.link.VehicleLinkManager;
+import com.example.arduinobluetoothcontroller.trace.SessionRecorder;
+
+import java.io.File;
+
+/**
+ * App-wide link registry. Every vehicle gets its own {@link BluetoothController}, keyed by
+ * device address in a shared {@link VehicleLinkManager}; the activities drive whichever one is
+ * selected.
+ */
 public final class BluetoothControllerProvider {
 
-    private static BluetoothController instance;
+    // The firmware sends STAT at 10 Hz, so a second and a half is fifteen missed frames.
+    private static final long WATCHDOG_TIMEOUT_MS = 1500L;
+    private static final int MAX_LINKS = 4;
+    // The stock firmware only understands <ARM>; turn this on for firmware that interpolates MOV.
+    private static final boolean ARM_MOVES_ENABLED = false;
+
+    private static VehicleLinkManager<BluetoothController> manager;
+    private static BluetoothController selected;
+    private static boolean selectedRegistered;
 
     private BluetoothControllerProvider() {
     }
 
+    public static synchronized VehicleLinkManager<BluetoothController> getManager(Context context) {
+        if (manager == null && context != null) {
+            Context applicationContext = context.getApplicationContext();
+            manager = new VehicleLinkManager<>(MAX_LINKS, (address, executors) -> configure(
+                    new BluetoothController(applicationContext, executors),
+                    applicationContext, address));
+        }
+        return manager;
+    }
+
+    /**
+     * The selected link. Until a device is chosen this is an unbound controller, which the
+     * first {@link #select} adopts.
+     */
     public static synchronized BluetoothController getInstance(Context context) {
-        if (instance == null && context != null) {
-            instance = new BluetoothController(context.getApplicationContext());
+        if (selected == null && context != null) {
+            VehicleLinkManager<BluetoothController> links = getManager(context);
+            Context applicationContext = context.getApplicationContext();
+            selected = configure(
+                    new BluetoothController(applicationContext, links.getExecutors()),
+                    applicationContext, null);
         }
-        return instance;
+        return selected;
     }
-}
 
+    /**
+     * Makes the link for {@code device} the selected one and returns it.
+     *
+     * @throws IllegalStateException if a new link is needed and the manager is full
+     */
+    public static synchronized BluetoothController select(Context context, BluetoothDevice device) {
+        VehicleLinkManager<BluetoothController> links = getManager(context);
+        String address = device.getAddress();
+        BluetoothController existing = links.get(address);
+        if (existing != null) {
+            selected = existing;
+        } else if (selected != null && !selectedRegistered) {
+            links.register(address, selected);
+            selected.setSessionRecorder(newRecorder(context.getApplicationContext(), address));
+        } else {
+            selected = links.getOrCreate(address);
+        }
+        selectedRegistered = true;
+        return selected;
+    }
+
+    private static BluetoothController configure(
+            BluetoothController controller, Context context, String address) {
+        controller.setSessionRecorder(newRecorder(context, address));
+        controller.setWatchdogTimeoutMillis(WATCHDOG_TIMEOUT_MS);
+        controller.setReconnectPolicy(ReconnectPolicy.DEFAULT);
+        controller.setArmMovesEnabled(ARM_MOVES_ENABLED);
+        return controller;
+    }
 
+    private static SessionRecorder newRecorder(Context context, String address) {
+        File root = new File(context.getFilesDir(), "sessions");
+        return new SessionRecorder(
+                address != null ? new File(root, address.replace(':', '-')) : root);
+    }
+}
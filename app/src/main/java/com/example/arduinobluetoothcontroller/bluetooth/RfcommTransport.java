@@ -0,0 +1,99 @@
+package com.example.arduinobluetoothcontroller.bluetooth;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothSocket;
+
+import com.example.arduinobluetoothcontroller.transport.Transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+public class RfcommTransport implements Transport {
+
+    private static final UUID SPP_UUID =
+            UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
+
+    private final BluetoothAdapter adapter;
+    private final BluetoothDevice device;
+
+    private volatile BluetoothSocket socket;
+
+    public RfcommTransport(BluetoothAdapter adapter, BluetoothDevice device) {
+        this.adapter = adapter;
+        this.device = device;
+    }
+
+    public BluetoothDevice getDevice() {
+        return device;
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public void open() throws IOException {
+        adapter.cancelDiscovery();
+        BluetoothSocket targetSocket = device.createRfcommSocketToServiceRecord(SPP_UUID);
+        try {
+            targetSocket.connect();
+        } catch (IOException ioException) {
+            closeQuietly(targetSocket);
+            throw ioException;
+        }
+        socket = targetSocket;
+    }
+
+    @Override
+    public boolean isOpen() {
+        BluetoothSocket current = socket;
+        return current != null && current.isConnected();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return requireSocket().getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return requireSocket().getOutputStream();
+    }
+
+    @Override
+    public void close() {
+        BluetoothSocket current = socket;
+        socket = null;
+        closeQuietly(current);
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public String getName() {
+        String name = device.getName();
+        return name != null ? name : device.getAddress();
+    }
+
+    @Override
+    public String getAddress() {
+        return device.getAddress();
+    }
+
+    private BluetoothSocket requireSocket() throws IOException {
+        BluetoothSocket current = socket;
+        if (current == null) {
+            throw new IOException("Socket not connected.");
+        }
+        return current;
+    }
+
+    private void closeQuietly(BluetoothSocket targetSocket) {
+        if (targetSocket != null) {
+            try {
+                targetSocket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
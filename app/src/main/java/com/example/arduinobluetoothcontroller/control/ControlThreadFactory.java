@@ -0,0 +1,24 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import android.os.Process;
+
+import java.util.concurrent.ThreadFactory;
+
+public class ControlThreadFactory implements ThreadFactory {
+
+    private final String name;
+
+    public ControlThreadFactory(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_DISPLAY);
+            runnable.run();
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
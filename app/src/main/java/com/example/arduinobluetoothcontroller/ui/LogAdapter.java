@@ -10,19 +10,32 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.arduinobluetoothcontroller.R;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class LogAdapter extends RecyclerView.Adapter<LogAdapter.LogViewHolder> {
 
-    private final List<String> items = new ArrayList<>();
-
-    public void submit(List<String> logs) {
-        items.clear();
-        if (logs != null) {
-            items.addAll(logs);
+    private final LogStore store;
+    private final LogStore.Observer storeObserver = (removedFromStart, insertedAtEnd) -> {
+        if (removedFromStart > 0) {
+            notifyItemRangeRemoved(0, removedFromStart);
+        }
+        if (insertedAtEnd > 0) {
+            notifyItemRangeInserted(getItemCount() - insertedAtEnd, insertedAtEnd);
         }
-        notifyDataSetChanged();
+    };
+
+    public LogAdapter(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        store.addObserver(storeObserver);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        store.removeObserver(storeObserver);
     }
 
     @NonNull
@@ -35,12 +48,12 @@ public class LogAdapter extends RecyclerView.Adapter<LogAdapter.LogViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull LogViewHolder holder, int position) {
-        holder.bind(items.get(position));
+        holder.bind(store.get(position));
     }
 
     @Override
     public int getItemCount() {
-        return items.size();
+        return store.size();
     }
 
     static class LogViewHolder extends RecyclerView.ViewHolder {
@@ -56,5 +69,3 @@ public class LogAdapter extends RecyclerView.Adapter<LogAdapter.LogViewHolder> {
         }
     }
 }
-
-
@@ -14,18 +14,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.arduinobluetoothcontroller.R;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 
-import java.util.ArrayList;
-
 public class LogDialogFragment extends DialogFragment {
 
-    private static final String ARG_LOGS = "logs";
-
-    public static LogDialogFragment newInstance(ArrayList<String> logs) {
-        LogDialogFragment fragment = new LogDialogFragment();
-        Bundle args = new Bundle();
-        args.putStringArrayList(ARG_LOGS, logs);
-        fragment.setArguments(args);
-        return fragment;
+    public static LogDialogFragment newInstance() {
+        return new LogDialogFragment();
     }
 
     @NonNull
@@ -35,12 +27,20 @@ public class LogDialogFragment extends DialogFragment {
                 .inflate(R.layout.dialog_log, null, false);
 
         RecyclerView recyclerView = contentView.findViewById(R.id.logRecyclerView);
-        recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
-
-        LogAdapter adapter = new LogAdapter();
-        adapter.submit(getArguments() != null
-                ? getArguments().getStringArrayList(ARG_LOGS)
-                : new ArrayList<>());
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        recyclerView.setLayoutManager(layoutManager);
+
+        LogAdapter adapter = new LogAdapter(LogStoreProvider.getInstance(requireContext()));
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                // Follow the tail only while the user is looking at it.
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible == RecyclerView.NO_POSITION || lastVisible >= positionStart - 1) {
+                    recyclerView.scrollToPosition(adapter.getItemCount() - 1);
+                }
+            }
+        });
         recyclerView.setAdapter(adapter);
         if (adapter.getItemCount() > 0) {
             recyclerView.scrollToPosition(adapter.getItemCount() - 1);
@@ -53,4 +53,3 @@ public class LogDialogFragment extends DialogFragment {
                 .create();
     }
 }
-
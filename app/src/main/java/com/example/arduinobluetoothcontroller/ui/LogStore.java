@@ -0,0 +1,107 @@
+package com.example.arduinobluetoothcontroller.ui;
+
+import androidx.annotation.MainThread;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bounded log of recent lines. Appending is O(1): once full, each new line overwrites the
+ * oldest. Observers learn exactly how many lines were dropped from the front and added at the
+ * back, which maps directly onto RecyclerView range notifications.
+ */
+public class LogStore {
+
+    public interface Observer {
+        @MainThread
+        void onLinesChanged(int removedFromStart, int insertedAtEnd);
+    }
+
+    private final String[] lines;
+    private final CopyOnWriteArrayList<Observer> observers = new CopyOnWriteArrayList<>();
+
+    private int head;
+    private int size;
+    private String latest;
+
+    public LogStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        lines = new String[capacity];
+    }
+
+    public int getCapacity() {
+        return lines.length;
+    }
+
+    @MainThread
+    public int size() {
+        return size;
+    }
+
+    @MainThread
+    public String get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        return lines[(head + position) % lines.length];
+    }
+
+    @MainThread
+    public String getLatest() {
+        return latest;
+    }
+
+    @MainThread
+    public void append(String line) {
+        if (line == null) {
+            return;
+        }
+        int removed = store(line);
+        for (Observer observer : observers) {
+            observer.onLinesChanged(removed, 1);
+        }
+    }
+
+    @MainThread
+    public void appendAll(String[] batch, int count) {
+        if (count <= 0) {
+            return;
+        }
+        int removed = 0;
+        int inserted = 0;
+        for (int i = 0; i < count; i++) {
+            if (batch[i] != null) {
+                removed += store(batch[i]);
+                inserted++;
+            }
+        }
+        // Lines pushed out of the store in this batch were never observed individually.
+        int overlap = Math.max(0, inserted - size);
+        for (Observer observer : observers) {
+            observer.onLinesChanged(removed - overlap, inserted - overlap);
+        }
+    }
+
+    public void addObserver(Observer observer) {
+        if (observer != null) {
+            observers.add(observer);
+        }
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    private int store(String line) {
+        latest = line;
+        if (size < lines.length) {
+            lines[(head + size) % lines.length] = line;
+            size++;
+            return 0;
+        }
+        lines[head] = line;
+        head = (head + 1) % lines.length;
+        return 1;
+    }
+}
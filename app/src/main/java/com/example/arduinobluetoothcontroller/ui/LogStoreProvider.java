@@ -0,0 +1,20 @@
+package com.example.arduinobluetoothcontroller.ui;
+
+import android.content.Context;
+
+import com.example.arduinobluetoothcontroller.R;
+
+public final class LogStoreProvider {
+
+    private static LogStore instance;
+
+    private LogStoreProvider() {
+    }
+
+    public static synchronized LogStore getInstance(Context context) {
+        if (instance == null && context != null) {
+            instance = new LogStore(context.getResources().getInteger(R.integer.log_capacity));
+        }
+        return instance;
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.arduinobluetoothcontroller.view;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
@@ -12,11 +14,21 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
 import com.example.arduinobluetoothcontroller.R;
+import com.example.arduinobluetoothcontroller.link.LatencyHistogram;
 
+/**
+ * Round joystick. The base and the shadowed knob are rasterised once per size into bitmaps, so
+ * drawing stays on the hardware-accelerated path, and every batched historical touch sample is
+ * passed to the listener rather than only the newest one.
+ */
 public class JoystickView extends View {
 
     public interface OnJoystickChangeListener {
-        void onChanged(float normalizedX, float normalizedY);
+        /**
+         * Called for each touch sample in order, historical ones included.
+         * {@code eventTimeMillis} is in the {@link SystemClock#uptimeMillis()} timebase.
+         */
+        void onChanged(float normalizedX, float normalizedY, long eventTimeMillis);
     }
 
     private static final float KNOB_RADIUS_RATIO = 0.25f;
@@ -24,6 +36,16 @@ public class JoystickView extends View {
     private final Paint basePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     private final Paint ringPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     private final Paint knobPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    // Filtering keeps the knob smooth at fractional positions.
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
+
+    private Bitmap baseBitmap;
+    private Bitmap knobBitmap;
+    private float knobBitmapOffset;
+    private int activePointerId = MotionEvent.INVALID_POINTER_ID;
+    private long moveEventCount;
+    private long historicalSampleCount;
 
     private float centerX;
     private float centerY;
@@ -63,8 +85,8 @@ public class JoystickView extends View {
 
         knobPaint.setStyle(Paint.Style.FILL);
         knobPaint.setColor(accentColor);
+        // Only used when rasterising the knob bitmap, which is a software canvas.
         knobPaint.setShadowLayer(dp(6), 0, dp(4), Color.argb(120, 0, 0, 0));
-        setLayerType(LAYER_TYPE_SOFTWARE, knobPaint);
     }
 
     @Override
@@ -75,41 +97,131 @@ public class JoystickView extends View {
         knobRadius = baseRadius * KNOB_RADIUS_RATIO;
         centerX = w / 2f;
         centerY = h / 2f;
-        resetKnob();
+        rebuildBitmaps(w, h);
+        resetKnob(SystemClock.uptimeMillis());
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        recycleBitmaps();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        canvas.drawCircle(centerX, centerY, baseRadius, basePaint);
-        canvas.drawCircle(centerX, centerY, baseRadius, ringPaint);
-        canvas.drawCircle(knobX, knobY, knobRadius, knobPaint);
+        if (baseBitmap == null) {
+            rebuildBitmaps(getWidth(), getHeight());
+            if (baseBitmap == null) {
+                return;
+            }
+        }
+        canvas.drawBitmap(baseBitmap, 0f, 0f, null);
+        canvas.drawBitmap(knobBitmap, knobX - knobBitmapOffset, knobY - knobBitmapOffset,
+                bitmapPaint);
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        switch (event.getAction()) {
+        switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
+                activePointerId = event.getPointerId(0);
+                updateKnob(event.getX(), event.getY(), event.getEventTime());
+                recordLatency(event);
+                invalidate();
+                return true;
             case MotionEvent.ACTION_MOVE:
-                updateKnob(event.getX(), event.getY());
+                int index = event.findPointerIndex(activePointerId);
+                if (index < 0) {
+                    return true;
+                }
+                // Touch panels faster than the display batch several samples per event.
+                int historySize = event.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    updateKnob(event.getHistoricalX(index, h), event.getHistoricalY(index, h),
+                            event.getHistoricalEventTime(h));
+                }
+                updateKnob(event.getX(index), event.getY(index), event.getEventTime());
+                moveEventCount++;
+                historicalSampleCount += historySize;
+                recordLatency(event);
+                invalidate();
+                return true;
+            case MotionEvent.ACTION_POINTER_UP:
+                if (event.getPointerId(event.getActionIndex()) == activePointerId) {
+                    activePointerId = MotionEvent.INVALID_POINTER_ID;
+                    resetKnob(event.getEventTime());
+                }
                 return true;
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
-                resetKnob();
+                activePointerId = MotionEvent.INVALID_POINTER_ID;
+                resetKnob(event.getEventTime());
                 return true;
             default:
                 return super.onTouchEvent(event);
         }
     }
 
-    private void resetKnob() {
+    /**
+     * Time from each touch event to its listener call returning. Main thread only.
+     */
+    public LatencyHistogram getInputLatency() {
+        return inputLatency;
+    }
+
+    public long getMoveEventCount() {
+        return moveEventCount;
+    }
+
+    /**
+     * Batched samples delivered in addition to the newest one of each move event.
+     */
+    public long getHistoricalSampleCount() {
+        return historicalSampleCount;
+    }
+
+    private void recordLatency(MotionEvent event) {
+        inputLatency.recordMicros((SystemClock.uptimeMillis() - event.getEventTime()) * 1000L);
+    }
+
+    private void rebuildBitmaps(int w, int h) {
+        recycleBitmaps();
+        if (w <= 0 || h <= 0 || knobRadius <= 0f) {
+            return;
+        }
+        baseBitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        Canvas baseCanvas = new Canvas(baseBitmap);
+        baseCanvas.drawCircle(centerX, centerY, baseRadius, basePaint);
+        baseCanvas.drawCircle(centerX, centerY, baseRadius, ringPaint);
+
+        // Room for the shadow's blur and downward offset on every side.
+        knobBitmapOffset = knobRadius + dp(12);
+        int knobSize = (int) Math.ceil(knobBitmapOffset * 2f);
+        knobBitmap = Bitmap.createBitmap(knobSize, knobSize, Bitmap.Config.ARGB_8888);
+        new Canvas(knobBitmap).drawCircle(
+                knobBitmapOffset, knobBitmapOffset, knobRadius, knobPaint);
+    }
+
+    private void recycleBitmaps() {
+        if (baseBitmap != null) {
+            baseBitmap.recycle();
+            baseBitmap = null;
+        }
+        if (knobBitmap != null) {
+            knobBitmap.recycle();
+            knobBitmap = null;
+        }
+    }
+
+    private void resetKnob(long eventTimeMillis) {
         knobX = centerX;
         knobY = centerY;
-        notifyListener(0f, 0f);
+        notifyListener(0f, 0f, eventTimeMillis);
         invalidate();
     }
 
-    private void updateKnob(float touchX, float touchY) {
+    private void updateKnob(float touchX, float touchY, long eventTimeMillis) {
         float dx = touchX - centerX;
         float dy = touchY - centerY;
         double distance = Math.sqrt(dx * dx + dy * dy);
@@ -126,13 +238,12 @@ public class JoystickView extends View {
         float normalizedX = dx / baseRadius;
         float normalizedY = -(dy / baseRadius);
 
-        notifyListener(normalizedX, normalizedY);
-        invalidate();
+        notifyListener(normalizedX, normalizedY, eventTimeMillis);
     }
 
-    private void notifyListener(float normalizedX, float normalizedY) {
+    private void notifyListener(float normalizedX, float normalizedY, long eventTimeMillis) {
         if (listener != null) {
-            listener.onChanged(normalizedX, normalizedY);
+            listener.onChanged(normalizedX, normalizedY, eventTimeMillis);
         }
     }
 
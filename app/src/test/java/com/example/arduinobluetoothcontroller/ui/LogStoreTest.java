@@ -0,0 +1,43 @@
+package com.example.arduinobluetoothcontroller.ui;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogStoreTest {
+
+    private final List<String> changes = new ArrayList<>();
+
+    @Test
+    public void appendOverwritesOldestOnceFull() {
+        LogStore store = new LogStore(3);
+        store.addObserver((removed, inserted) -> changes.add(removed + "/" + inserted));
+
+        for (int i = 0; i < 5; i++) {
+            store.append("line " + i);
+        }
+
+        assertEquals(3, store.size());
+        assertEquals("line 2", store.get(0));
+        assertEquals("line 4", store.get(2));
+        assertEquals("line 4", store.getLatest());
+        assertEquals("[0/1, 0/1, 0/1, 1/1, 1/1]", changes.toString());
+    }
+
+    @Test
+    public void batchLargerThanCapacityReportsNetChange() {
+        LogStore store = new LogStore(4);
+        store.append("old");
+        store.addObserver((removed, inserted) -> changes.add(removed + "/" + inserted));
+
+        String[] batch = {"a", "b", "c", "d", "e", "f"};
+        store.appendAll(batch, batch.length);
+
+        assertEquals("[1/4]", changes.toString());
+        assertEquals("c", store.get(0));
+        assertEquals("f", store.get(3));
+    }
+}
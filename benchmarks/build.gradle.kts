@@ -0,0 +1,58 @@
+plugins {
+    java
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation(libs.jmh.core)
+    annotationProcessor(libs.jmh.generator.annprocess)
+}
+
+val jmhResults = layout.buildDirectory.file("reports/jmh/results.csv")
+val jmhBaseline = layout.projectDirectory.file("baseline.csv")
+
+// ./gradlew :benchmarks:jmh [-Pjmh.include=Encoding]
+val jmh by tasks.registering(JavaExec::class) {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks with the GC profiler and writes CSV results."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    outputs.file(jmhResults)
+    outputs.upToDateWhen { false }
+    doFirst { jmhResults.get().asFile.parentFile.mkdirs() }
+    args(
+        (findProperty("jmh.include") as String?) ?: ".*",
+        "-prof", "gc",
+        "-rf", "csv",
+        "-rff", jmhResults.get().asFile.path
+    )
+}
+
+// ./gradlew :benchmarks:jmhBaseline records the current numbers as the committed baseline.
+tasks.register<Copy>("jmhBaseline") {
+    group = "benchmark"
+    description = "Copies the latest JMH results over baseline.csv."
+    dependsOn(jmh)
+    from(jmhResults)
+    into(layout.projectDirectory)
+    rename { jmhBaseline.asFile.name }
+}
+
+// ./gradlew :benchmarks:jmhCompare fails when a score regresses past the tolerance.
+tasks.register<JavaExec>("jmhCompare") {
+    group = "benchmark"
+    description = "Compares the latest JMH results against baseline.csv."
+    dependsOn(jmh)
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("com.example.arduinobluetoothcontroller.benchmarks.BaselineComparator")
+    args(
+        jmhBaseline.asFile.path,
+        jmhResults.get().asFile.path,
+        (findProperty("jmh.tolerance") as String?) ?: "0.25"
+    )
+}
@@ -0,0 +1,119 @@
+package com.example.arduinobluetoothcontroller.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH CSV result file against the committed baseline. Primary scores and
+ * {@code gc.alloc.rate.norm} are checked; other profiler rows are informational. Exits
+ * non-zero when any benchmark is slower, or allocates more, than the tolerance allows.
+ *
+ * <p>Usage: {@code BaselineComparator baseline.csv results.csv [tolerance]}
+ */
+public final class BaselineComparator {
+
+    private static final String ALLOCATION_SUFFIX = ":gc.alloc.rate.norm";
+    private static final double ALLOCATION_SLACK_BYTES = 16d;
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineComparator <baseline.csv> <results.csv> [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.25d;
+        Map<String, Double> baseline = read(args[0]);
+        Map<String, Double> results = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : results.entrySet()) {
+            String key = entry.getKey();
+            Double expected = baseline.get(key);
+            if (expected == null) {
+                System.out.printf("NEW        %s = %.3f%n", key, entry.getValue());
+                continue;
+            }
+            double actual = entry.getValue();
+            double limit = expected * (1d + tolerance);
+            if (key.contains(ALLOCATION_SUFFIX)) {
+                limit += ALLOCATION_SLACK_BYTES;
+            }
+            boolean regressed = actual > limit;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s = %.3f (baseline %.3f)%n",
+                    regressed ? "REGRESSED" : "ok", key, actual, expected);
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed beyond "
+                    + Math.round(tolerance * 100) + "%.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Maps "benchmark[:metric] param=value..." to its score, keeping the primary and
+     * normalised allocation rows only.
+     */
+    static Map<String, Double> read(String path) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+        Map<String, Double> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return scores;
+        }
+        List<String> header = split(lines.get(0));
+        for (int i = 1; i < lines.size(); i++) {
+            List<String> columns = split(lines.get(i));
+            if (columns.size() < 7) {
+                continue;
+            }
+            String benchmark = columns.get(0);
+            int metric = benchmark.indexOf(':');
+            if (metric >= 0 && !benchmark.endsWith(ALLOCATION_SUFFIX)) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(benchmark);
+            for (int column = 7; column < columns.size() && column < header.size(); column++) {
+                if (!columns.get(column).isEmpty()) {
+                    key.append(' ').append(header.get(column).replace("Param: ", ""))
+                            .append('=').append(columns.get(column));
+                }
+            }
+            try {
+                scores.put(key.toString(), Double.parseDouble(columns.get(4)));
+            } catch (NumberFormatException ignored) {
+                // NaN scores from failed iterations are left out.
+            }
+        }
+        return scores;
+    }
+
+    private static List<String> split(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        columns.add(current.toString());
+        return columns;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.arduinobluetoothcontroller.benchmarks;
+
+import com.example.arduinobluetoothcontroller.protocol.CommandEncoder;
+import com.example.arduinobluetoothcontroller.protocol.CommandProtocol;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drive command encoding: the original {@code String.format} + {@code getBytes} path against
+ * the allocation-free text and binary encoders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandEncodingBenchmark {
+
+    private final byte[] buffer = new byte[CommandEncoder.MAX_FRAME_LENGTH];
+    private final CommandEncoder textEncoder = CommandProtocol.TEXT.getEncoder();
+    private final CommandEncoder binaryEncoder = CommandProtocol.BINARY.getEncoder();
+    private int tick;
+
+    @Benchmark
+    public byte[] legacyFormat() {
+        int value = tick++;
+        String command = String.format(Locale.US, "<DRV:%d:%d>", speed(value), angle(value));
+        return (command + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int textEncoder() {
+        int value = tick++;
+        return textEncoder.encodeDrive(
+                buffer, 0, CommandEncoder.NO_SEQUENCE, speed(value), angle(value));
+    }
+
+    @Benchmark
+    public int binaryEncoder() {
+        int value = tick++;
+        return binaryEncoder.encodeDrive(
+                buffer, 0, CommandEncoder.NO_SEQUENCE, speed(value), angle(value));
+    }
+
+    private static int speed(int value) {
+        return (value & 0x1FF) - 255;
+    }
+
+    private static int angle(int value) {
+        return (value * 7) % 181;
+    }
+}
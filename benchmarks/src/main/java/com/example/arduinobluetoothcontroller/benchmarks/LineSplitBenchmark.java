@@ -0,0 +1,124 @@
+package com.example.arduinobluetoothcontroller.benchmarks;
+
+import com.example.arduinobluetoothcontroller.protocol.PacketParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reader-side line splitting over a telemetry stream delivered in fixed-size fragments, as
+ * RFCOMM hands it over. One operation is the whole stream of {@link #LINES} lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineSplitBenchmark {
+
+    private static final int LINES = 256;
+
+    @Param({"1", "7", "64", "1024"})
+    public int fragmentSize;
+
+    private byte[] stream;
+    private PacketParser parser;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            switch (i % 4) {
+                case 0:
+                case 1:
+                    builder.append("<STAT:").append(i % 256).append(':')
+                            .append(i % 30).append(".5:7.").append(i % 10).append("V>\r\n");
+                    break;
+                case 2:
+                    builder.append("<LOG:arm joint ").append(i % 3).append(" ok>\n");
+                    break;
+                default:
+                    builder.append("<ACK:").append(i % 256).append(">\n");
+                    break;
+            }
+        }
+        stream = builder.toString().getBytes(StandardCharsets.US_ASCII);
+        parser = new PacketParser(new PacketParser.Listener() {
+            @Override
+            public void onFrame(CharSequence frame) {
+                LineSplitBenchmark.this.blackhole.consume(frame.length());
+            }
+
+            @Override
+            public void onStat(int pwm, float tilt, int batteryMillivolts) {
+                LineSplitBenchmark.this.blackhole.consume(pwm);
+            }
+
+            @Override
+            public void onLog(CharSequence message) {
+                LineSplitBenchmark.this.blackhole.consume(message.length());
+            }
+
+            @Override
+            public void onAck(int sequence) {
+                LineSplitBenchmark.this.blackhole.consume(sequence);
+            }
+
+            @Override
+            public void onCredit(int received, int free) {
+                LineSplitBenchmark.this.blackhole.consume(received + free);
+            }
+
+            @Override
+            public void onOther(CharSequence frame) {
+                LineSplitBenchmark.this.blackhole.consume(frame.length());
+            }
+        });
+    }
+
+    /**
+     * The reader loop as originally written in {@code BluetoothController.startReader()}.
+     */
+    @Benchmark
+    public void legacyStringBuilder(Blackhole blackhole) {
+        StringBuilder builder = new StringBuilder();
+        for (int start = 0; start < stream.length; start += fragmentSize) {
+            int size = Math.min(fragmentSize, stream.length - start);
+            for (int i = 0; i < size; i++) {
+                char c = (char) stream[start + i];
+                if (c == '\n') {
+                    String packet = builder.toString().trim();
+                    builder.setLength(0);
+                    if (!packet.isEmpty()) {
+                        blackhole.consume(packet);
+                    }
+                } else if (c != '\r') {
+                    builder.append(c);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void packetParser() {
+        for (int start = 0; start < stream.length; start += fragmentSize) {
+            parser.feed(stream, start, Math.min(fragmentSize, stream.length - start));
+        }
+    }
+}
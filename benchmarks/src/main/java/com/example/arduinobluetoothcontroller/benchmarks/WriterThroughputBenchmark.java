@@ -0,0 +1,182 @@
+package com.example.arduinobluetoothcontroller.benchmarks;
+
+import com.example.arduinobluetoothcontroller.link.CommandQueue;
+import com.example.arduinobluetoothcontroller.link.CommandWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commands from a producer thread to the wire: the original one-task-per-command
+ * {@code writerExecutor} path against {@link CommandQueue} + {@link CommandWriter}. An
+ * operation is one command written; each invocation ends once every byte of its commands has
+ * reached the sink, so both paths are measured to the same point and write the same bytes.
+ *
+ * <p>The queue keeps only the latest command per channel, so the producer spreads arm commands
+ * over every joint and never overwrites a joint whose previous command the writer has not yet
+ * taken. Nothing is coalesced away; batching only changes how many frames go per flush. That
+ * caps how far the producer can run ahead, so unlike the legacy path's unbounded queue the
+ * score includes the writer waking each time it drains the queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterThroughputBenchmark {
+
+    private static final int COMMANDS = 1000;
+    private static final long EXPECTED_BYTES = expectedBytes();
+
+    private ExecutorService legacyExecutor;
+    private SinkStream legacySink;
+
+    @State(Scope.Thread)
+    public static class WriterState {
+
+        @Param({"0", "3000"})
+        public long batchWindowMicros;
+
+        CommandQueue queue;
+        SinkStream sink;
+        private Thread thread;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            queue = new CommandQueue();
+            CommandWriter writer = new CommandWriter(queue, exception -> {
+            });
+            writer.setBatchWindowNanos(TimeUnit.MICROSECONDS.toNanos(batchWindowMicros));
+            sink = new SinkStream();
+            thread = new Thread(() -> writer.run(sink), "benchmark-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        legacyExecutor = Executors.newSingleThreadExecutor();
+        legacySink = new SinkStream();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        legacyExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void legacyExecutor() throws Exception {
+        legacySink.reset();
+        Future<?> last = null;
+        for (int i = 0; i < COMMANDS; i++) {
+            String command = i == COMMANDS - 1
+                    ? "<DRV:0:90>"
+                    : String.format(Locale.US, "<ARM:%d:%d>", joint(i), angle(i));
+            last = legacyExecutor.submit(() -> {
+                try {
+                    legacySink.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+                    legacySink.flush();
+                } catch (IOException ignored) {
+                }
+            });
+        }
+        last.get();
+        legacySink.check();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void commandWriter(WriterState state) {
+        CommandQueue queue = state.queue;
+        state.sink.reset();
+        for (int i = 0; i < COMMANDS - 1; i++) {
+            // Arm commands share one lane and leave it oldest first, so once fewer than a
+            // joint's worth are pending this joint's previous command has been taken.
+            while (queue.size() >= CommandQueue.MAX_ARM_JOINTS) {
+                Thread.onSpinWait();
+            }
+            queue.offerArm(joint(i), angle(i));
+        }
+        queue.offerStop();
+        while (state.sink.bytes < EXPECTED_BYTES) {
+            Thread.onSpinWait();
+        }
+        state.sink.check();
+    }
+
+    private static int joint(int index) {
+        return index % CommandQueue.MAX_ARM_JOINTS;
+    }
+
+    private static int angle(int index) {
+        return index % 181;
+    }
+
+    private static long expectedBytes() {
+        long total = "<DRV:0:90>\n".length();
+        for (int i = 0; i < COMMANDS - 1; i++) {
+            total += String.format(Locale.US, "<ARM:%d:%d>\n", joint(i), angle(i)).length();
+        }
+        return total;
+    }
+
+    /**
+     * Discards bytes like a fast socket, counting them so a run that lost commands fails.
+     */
+    static final class SinkStream extends OutputStream {
+
+        // Written by one writer thread at a time.
+        volatile long bytes;
+
+        void reset() {
+            bytes = 0L;
+        }
+
+        void check() {
+            if (bytes != EXPECTED_BYTES) {
+                throw new IllegalStateException(
+                        "Wrote " + bytes + " bytes, expected " + EXPECTED_BYTES);
+            }
+        }
+
+        @Override
+        public void write(int value) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) {
+            bytes += length;
+        }
+    }
+}
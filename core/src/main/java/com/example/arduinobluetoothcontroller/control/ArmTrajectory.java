@@ -0,0 +1,118 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import com.example.arduinobluetoothcontroller.protocol.MotionProfile;
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans arm moves as one timed command per joint and keeps track of where each joint is
+ * between them. A move starts from the joint's current position along the {@link MotionProfile}
+ * and its duration is the shortest that keeps the peak velocity under the limit. Retargeting a
+ * joint mid-move replans from wherever it has got to, which is also what the firmware does.
+ */
+public class ArmTrajectory {
+
+    public interface Sink {
+        void sendMove(int joint, int angle, int durationMillis, MotionProfile profile);
+    }
+
+    // The most a move frame can carry; slower moves are sped up to fit.
+    public static final int MAX_DURATION_MILLIS = 0xFFFF;
+
+    private final int minAngle;
+    private final int maxAngle;
+    private final MotionProfile profile;
+    private final float maxVelocityDegreesPerSecond;
+    private final Clock clock;
+    private final Sink sink;
+
+    private final float[] startAngles;
+    private final int[] targetAngles;
+    private final long[] startNanos;
+    private final long[] durationNanos;
+    private long moveCount;
+
+    public ArmTrajectory(int jointCount, int minAngle, int maxAngle, int initialAngle,
+                         MotionProfile profile, float maxVelocityDegreesPerSecond, Clock clock,
+                         Sink sink) {
+        if (maxVelocityDegreesPerSecond <= 0f) {
+            throw new IllegalArgumentException("Velocity must be positive.");
+        }
+        this.minAngle = minAngle;
+        this.maxAngle = maxAngle;
+        this.profile = profile;
+        this.maxVelocityDegreesPerSecond = maxVelocityDegreesPerSecond;
+        this.clock = clock;
+        this.sink = sink;
+        startAngles = new float[jointCount];
+        targetAngles = new int[jointCount];
+        startNanos = new long[jointCount];
+        durationNanos = new long[jointCount];
+        for (int joint = 0; joint < jointCount; joint++) {
+            startAngles[joint] = initialAngle;
+            targetAngles[joint] = initialAngle;
+        }
+    }
+
+    /**
+     * Moves {@code joint} to {@code angle} at up to the default velocity. Returns the planned
+     * duration in milliseconds, or -1 if the joint is already there and nothing was sent.
+     */
+    public int moveTo(int joint, int angle) {
+        return moveTo(joint, angle, maxVelocityDegreesPerSecond);
+    }
+
+    public synchronized int moveTo(int joint, int angle, float maxVelocityDegreesPerSecond) {
+        int target = Math.max(minAngle, Math.min(maxAngle, angle));
+        long now = clock.nanoTime();
+        float from = positionAt(joint, now);
+        if (target == targetAngles[joint] && Math.round(from) == target) {
+            return -1;
+        }
+        float distance = Math.abs(target - from);
+        int durationMillis = Math.min(MAX_DURATION_MILLIS,
+                Math.round(1000f * distance * profile.getPeakVelocityRatio()
+                        / Math.max(1e-3f, maxVelocityDegreesPerSecond)));
+        startAngles[joint] = from;
+        targetAngles[joint] = target;
+        startNanos[joint] = now;
+        durationNanos[joint] = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        moveCount++;
+        sink.sendMove(joint, target, durationMillis, profile);
+        return durationMillis;
+    }
+
+    /**
+     * Stops {@code joint} where it is now, e.g. when a jog button is released.
+     */
+    public synchronized void hold(int joint) {
+        moveTo(joint, Math.round(positionAt(joint, clock.nanoTime())));
+    }
+
+    public synchronized float getPosition(int joint) {
+        return positionAt(joint, clock.nanoTime());
+    }
+
+    public synchronized int getTarget(int joint) {
+        return targetAngles[joint];
+    }
+
+    public synchronized boolean isMoving(int joint) {
+        return clock.nanoTime() - startNanos[joint] < durationNanos[joint];
+    }
+
+    public synchronized long getMoveCount() {
+        return moveCount;
+    }
+
+    private float positionAt(int joint, long nowNanos) {
+        long duration = durationNanos[joint];
+        long elapsed = nowNanos - startNanos[joint];
+        if (duration <= 0L || elapsed >= duration) {
+            return targetAngles[joint];
+        }
+        float fraction = profile.position((float) elapsed / duration);
+        return startAngles[joint] + (targetAngles[joint] - startAngles[joint]) * fraction;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-rate tick source running on its own thread. Deadlines are absolute
+ * ({@code start + n * period}), so a slow tick delays only itself and never shifts the
+ * cadence; if the loop falls more than a period behind, missed ticks are skipped rather than
+ * replayed in a burst. Lateness of every tick against its deadline is tracked as jitter.
+ */
+public class ControlLoop {
+
+    public interface Tick {
+        void onTick(long tickIndex, long nowNanos);
+    }
+
+    /**
+     * Told on the loop thread about a tick that threw; the loop carries on with the next one.
+     */
+    public interface ErrorListener {
+        void onTickError(long tickIndex, RuntimeException exception);
+    }
+
+    private final String name;
+    private final Tick tick;
+    private final ThreadFactory threadFactory;
+
+    private volatile long periodNanos;
+    private volatile Thread thread;
+    private volatile ErrorListener errorListener;
+
+    // Written by the loop thread only.
+    private volatile long tickCount;
+    private volatile long missedTickCount;
+    private volatile long totalJitterNanos;
+    private volatile long maxJitterNanos;
+    private volatile long errorCount;
+
+    public ControlLoop(String name, long periodNanos, Tick tick) {
+        this(name, periodNanos, tick, runnable -> {
+            Thread loopThread = new Thread(runnable, name);
+            loopThread.setPriority(Thread.MAX_PRIORITY);
+            loopThread.setDaemon(true);
+            return loopThread;
+        });
+    }
+
+    public ControlLoop(String name, long periodNanos, Tick tick, ThreadFactory threadFactory) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Period must be positive.");
+        }
+        this.name = name;
+        this.periodNanos = periodNanos;
+        this.tick = tick;
+        this.threadFactory = threadFactory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        Thread loopThread = threadFactory.newThread(this::loop);
+        thread = loopThread;
+        loopThread.start();
+    }
+
+    public synchronized void stop() {
+        Thread loopThread = thread;
+        thread = null;
+        if (loopThread != null) {
+            LockSupport.unpark(loopThread);
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    public void setErrorListener(ErrorListener listener) {
+        errorListener = listener;
+    }
+
+    /**
+     * Takes effect from the next deadline.
+     */
+    public void setPeriodNanos(long periodNanos) {
+        if (periodNanos > 0) {
+            this.periodNanos = periodNanos;
+        }
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getMissedTickCount() {
+        return missedTickCount;
+    }
+
+    public long getMeanJitterNanos() {
+        long ticks = tickCount;
+        return ticks == 0 ? 0 : totalJitterNanos / ticks;
+    }
+
+    public long getMaxJitterNanos() {
+        return maxJitterNanos;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void resetStats() {
+        tickCount = 0;
+        missedTickCount = 0;
+        totalJitterNanos = 0;
+        maxJitterNanos = 0;
+    }
+
+    private void loop() {
+        // Factories may wrap the runnable, so identify this loop by the thread it runs on.
+        Thread self = Thread.currentThread();
+        long index = 0;
+        long deadline = System.nanoTime();
+        try {
+            while (thread == self) {
+                long now = System.nanoTime();
+                long remaining = deadline - now;
+                if (remaining > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                    continue;
+                }
+
+                recordJitter(-remaining);
+                long tickIndex = index++;
+                try {
+                    tick.onTick(tickIndex, now);
+                } catch (RuntimeException exception) {
+                    // Never the thread's uncaught handler: on Android that ends the process.
+                    errorCount++;
+                    ErrorListener listener = errorListener;
+                    if (listener != null) {
+                        listener.onTickError(tickIndex, exception);
+                    }
+                }
+
+                long period = periodNanos;
+                deadline += period;
+                long behind = System.nanoTime() - deadline;
+                if (behind > period) {
+                    long missed = behind / period;
+                    missedTickCount += missed;
+                    deadline += missed * period;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                if (thread == self) {
+                    thread = null;
+                }
+            }
+        }
+    }
+
+    private void recordJitter(long latenessNanos) {
+        tickCount++;
+        totalJitterNanos += latenessNanos;
+        if (latenessNanos > maxJitterNanos) {
+            maxJitterNanos = latenessNanos;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latest-wins drive setpoint between joystick input and a paced sender. {@link #update} may be
+ * called at touch rate from any thread; {@link #flush} hands the newest setpoint to the sink
+ * only when it differs from the last one sent and is meant to run on a {@link ControlLoop}
+ * tick. An unchanged setpoint is repeated once per heartbeat period so the firmware and the
+ * link watchdog can tell a steady joystick from a dead link.
+ */
+public class DriveThrottle {
+
+    public interface Sink {
+        void sendDrive(int speed, int angle);
+    }
+
+    public static final long DEFAULT_HEARTBEAT_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final AtomicInteger pending;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final long heartbeatNanos;
+
+    private volatile boolean sentAny;
+    // Owned by the flushing thread.
+    private int lastSent;
+    private long lastSentNanos;
+    private volatile long suppressedCount;
+    private volatile long heartbeatCount;
+
+    public DriveThrottle(int speed, int angle) {
+        this(speed, angle, 0L);
+    }
+
+    /**
+     * A {@code heartbeatNanos} of zero disables the heartbeat.
+     */
+    public DriveThrottle(int speed, int angle, long heartbeatNanos) {
+        pending = new AtomicInteger(pack(speed, angle));
+        this.heartbeatNanos = heartbeatNanos;
+    }
+
+    public void update(int speed, int angle) {
+        pending.set(pack(speed, angle));
+        dirty.set(true);
+    }
+
+    /**
+     * Sends a changed setpoint; never sends a heartbeat. Returns true if a setpoint was sent.
+     */
+    public boolean flush(Sink sink) {
+        return flush(sink, lastSentNanos, false);
+    }
+
+    /**
+     * Sends a changed setpoint, or repeats the last one if a heartbeat is due at
+     * {@code nowNanos}. Returns true if a setpoint was sent.
+     */
+    public boolean flush(Sink sink, long nowNanos) {
+        boolean heartbeatDue = heartbeatNanos > 0L
+                && sentAny
+                && nowNanos - lastSentNanos >= heartbeatNanos;
+        return flush(sink, nowNanos, heartbeatDue);
+    }
+
+    private boolean flush(Sink sink, long nowNanos, boolean heartbeatDue) {
+        boolean changed = dirty.getAndSet(false);
+        int packed = pending.get();
+        if (changed && sentAny && packed == lastSent && !heartbeatDue) {
+            suppressedCount++;
+            return false;
+        }
+        if (!changed && !heartbeatDue) {
+            return false;
+        }
+        if (!changed || (sentAny && packed == lastSent)) {
+            heartbeatCount++;
+        }
+        sink.sendDrive(packed >> 16, (short) packed);
+        sentAny = true;
+        lastSent = packed;
+        lastSentNanos = nowNanos;
+        return true;
+    }
+
+    /**
+     * Forgets the last sent setpoint, so the next flush sends even if nothing changed; call
+     * when a new connection starts.
+     */
+    public void reset() {
+        sentAny = false;
+        dirty.set(true);
+    }
+
+    public int getSpeed() {
+        return pending.get() >> 16;
+    }
+
+    public int getAngle() {
+        return (short) pending.get();
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    public long getHeartbeatCount() {
+        return heartbeatCount;
+    }
+
+    private static int pack(int speed, int angle) {
+        return (speed << 16) | (angle & 0xFFFF);
+    }
+}
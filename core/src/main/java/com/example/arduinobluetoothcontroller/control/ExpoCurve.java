@@ -0,0 +1,37 @@
+package com.example.arduinobluetoothcontroller.control;
+
+/**
+ * Blends each axis between linear and cubic response: {@code (1 - e) * v + e * v^3}. An expo
+ * of zero is linear; higher values give finer control near centre without losing full scale.
+ */
+public class ExpoCurve implements InputShaper.Stage {
+
+    private final float expoX;
+    private final float expoY;
+
+    public ExpoCurve(float expoX, float expoY) {
+        this.expoX = checkExpo(expoX);
+        this.expoY = checkExpo(expoY);
+    }
+
+    @Override
+    public void apply(InputShaper.Sample sample) {
+        sample.x = curve(sample.x, expoX);
+        sample.y = curve(sample.y, expoY);
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    private static float curve(float value, float expo) {
+        return (1f - expo) * value + expo * value * value * value;
+    }
+
+    private static float checkExpo(float expo) {
+        if (expo < 0f || expo > 1f) {
+            throw new IllegalArgumentException("Expo must be in [0, 1].");
+        }
+        return expo;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.arduinobluetoothcontroller.control;
+
+/**
+ * Rounds a value to multiples of {@code step}, but only leaves the current level once the input
+ * is more than {@code hysteresis} steps past the rounding boundary. Input jittering around a
+ * boundary then produces one output instead of a stream of alternating ones. Zero always maps
+ * to zero.
+ */
+public class HysteresisQuantizer {
+
+    private final int step;
+    private final float threshold;
+
+    private int level;
+
+    public HysteresisQuantizer(int step, float hysteresis) {
+        if (step <= 0 || hysteresis < 0f || hysteresis >= 0.5f) {
+            throw new IllegalArgumentException("Step must be positive and hysteresis in [0, 0.5).");
+        }
+        this.step = step;
+        threshold = step * (0.5f + hysteresis);
+    }
+
+    public int quantize(float value) {
+        if (value == 0f) {
+            level = 0;
+        } else if (Math.abs(value - level * step) > threshold) {
+            level = Math.round(value / step);
+        }
+        return level * step;
+    }
+
+    public void reset() {
+        level = 0;
+    }
+}
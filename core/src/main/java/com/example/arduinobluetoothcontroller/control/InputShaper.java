@@ -0,0 +1,115 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chain of {@link Stage}s between raw two-axis stick input and the command mapping. Each raw
+ * sample runs through every stage in order, in place, with no allocation. Time-based stages
+ * only move when they see a new time, so while the stick is held still the owner keeps calling
+ * {@link #tick} (once per frame, say) until it returns false.
+ *
+ * <p>A stick at exact zero, as reported on release, resets every stage: stops are never
+ * filtered or slewed. Not thread-safe.
+ */
+public class InputShaper {
+
+    /**
+     * Mutable sample passed through the stages; axes are normalised to [-1, 1].
+     */
+    public static final class Sample {
+        public float x;
+        public float y;
+        public long timeNanos;
+    }
+
+    public interface Stage {
+        void apply(Sample sample);
+
+        void reset();
+    }
+
+    private static final float SETTLED_EPSILON = 1e-3f;
+
+    private final Stage[] stages;
+    private final Sample sample = new Sample();
+
+    private float rawX;
+    private float rawY;
+    private float outX;
+    private float outY;
+
+    public InputShaper(Stage... stages) {
+        this.stages = stages.clone();
+    }
+
+    /**
+     * Radial dead zone, expo on both axes, One-Euro smoothing and a slew limit on moves away
+     * from centre.
+     */
+    public static InputShaper createDefault() {
+        return new InputShaper(
+                new RadialDeadZone(0.12f),
+                new ExpoCurve(0.2f, 0.3f),
+                new OneEuroFilter(1.5f, 0.5f, 1.0f),
+                new SlewRateLimiter(4.0f, TimeUnit.MILLISECONDS.toNanos(16)));
+    }
+
+    /**
+     * Shapes a new raw sample; {@code timeNanos} must share a timebase with later ticks.
+     */
+    public void shape(float x, float y, long timeNanos) {
+        rawX = x;
+        rawY = y;
+        if (x == 0f && y == 0f) {
+            reset();
+            return;
+        }
+        run(timeNanos);
+    }
+
+    /**
+     * Re-runs the last raw sample at {@code timeNanos} so filters and slew limits can settle.
+     * Returns true if the output moved, i.e. it is worth ticking again.
+     */
+    public boolean tick(long timeNanos) {
+        if (rawX == 0f && rawY == 0f) {
+            return false;
+        }
+        float previousX = outX;
+        float previousY = outY;
+        run(timeNanos);
+        return Math.abs(outX - previousX) > SETTLED_EPSILON
+                || Math.abs(outY - previousY) > SETTLED_EPSILON;
+    }
+
+    public void reset() {
+        for (Stage stage : stages) {
+            stage.reset();
+        }
+        outX = 0f;
+        outY = 0f;
+    }
+
+    public float getX() {
+        return outX;
+    }
+
+    public float getY() {
+        return outY;
+    }
+
+    private void run(long timeNanos) {
+        sample.x = rawX;
+        sample.y = rawY;
+        sample.timeNanos = timeNanos;
+        for (Stage stage : stages) {
+            stage.apply(sample);
+        }
+        outX = clamp(sample.x);
+        outY = clamp(sample.y);
+    }
+
+    private static float clamp(float value) {
+        return Math.max(-1f, Math.min(1f, value));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hold-to-jog for one joint: a press steps once immediately, then the joint travels in the held
+ * direction at a velocity that rises the longer the button is held. Each {@link #tick()} moves
+ * it to wherever that velocity has taken it by now, so how often ticks come never changes how
+ * far it goes. The angle is clamped and only reported when it changes.
+ */
+public class JointJog {
+
+    public interface Listener {
+        void onAngleChanged(int angle);
+    }
+
+    private static final long MEDIUM_HOLD_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long LONG_HOLD_NANOS = TimeUnit.SECONDS.toNanos(2);
+    // The 1, 2 and 5 degree steps of the original 50 ms jog timer.
+    private static final int SLOW_DEGREES_PER_SECOND = 20;
+    private static final int MEDIUM_DEGREES_PER_SECOND = 40;
+    private static final int FAST_DEGREES_PER_SECOND = 100;
+
+    private final int minAngle;
+    private final int maxAngle;
+    private final Clock clock;
+    private final Listener listener;
+    private final AtomicInteger angle;
+
+    private volatile int direction;
+    // Guarded by this.
+    private long holdStartNanos;
+    private int travelledDegrees;
+
+    public JointJog(int minAngle, int maxAngle, int initialAngle, Clock clock, Listener listener) {
+        this.minAngle = minAngle;
+        this.maxAngle = maxAngle;
+        this.clock = clock;
+        this.listener = listener;
+        this.angle = new AtomicInteger(initialAngle);
+    }
+
+    public int getAngle() {
+        return angle.get();
+    }
+
+    public synchronized void press(int direction) {
+        holdStartNanos = clock.nanoTime();
+        travelledDegrees = 0;
+        this.direction = direction;
+        step(direction);
+    }
+
+    public void release(int direction) {
+        if (this.direction == direction) {
+            this.direction = 0;
+        }
+    }
+
+    public void releaseAll() {
+        direction = 0;
+    }
+
+    public boolean isHeld() {
+        return direction != 0;
+    }
+
+    public synchronized void tick() {
+        int current = direction;
+        if (current == 0) {
+            return;
+        }
+        // Whole degrees only; the fraction carries over to the next tick.
+        int travelled = distanceDegrees(clock.nanoTime() - holdStartNanos);
+        int delta = travelled - travelledDegrees;
+        if (delta > 0) {
+            travelledDegrees = travelled;
+            step(delta * current);
+        }
+    }
+
+    /**
+     * Whole degrees a joint held for {@code heldNanos} has travelled after its initial step.
+     */
+    static int distanceDegrees(long heldNanos) {
+        long held = Math.max(0L, heldNanos);
+        long slow = Math.min(held, MEDIUM_HOLD_NANOS);
+        long medium = Math.max(0L, Math.min(held, LONG_HOLD_NANOS) - MEDIUM_HOLD_NANOS);
+        long fast = Math.max(0L, held - LONG_HOLD_NANOS);
+        long nanoDegrees = slow * SLOW_DEGREES_PER_SECOND + medium * MEDIUM_DEGREES_PER_SECOND
+                + fast * FAST_DEGREES_PER_SECOND;
+        return (int) (nanoDegrees / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void step(int delta) {
+        int current;
+        int updated;
+        do {
+            current = angle.get();
+            updated = Math.max(minAngle, Math.min(maxAngle, current + delta));
+            if (updated == current) {
+                return;
+            }
+        } while (!angle.compareAndSet(current, updated));
+        listener.onAngleChanged(updated);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.arduinobluetoothcontroller.control;
+
+/**
+ * One-Euro filter on each axis (Casiez et al., CHI 2012): a low-pass whose cutoff rises with the
+ * filtered speed of the input, so a slow or resting stick is smoothed hard and a fast flick
+ * follows with little lag.
+ */
+public class OneEuroFilter implements InputShaper.Stage {
+
+    // Samples at the same timestamp (touch times have millisecond resolution) count as this far
+    // apart.
+    private static final float MIN_DT_SECONDS = 0.001f;
+
+    private final float minCutoffHz;
+    private final float beta;
+    private final float derivativeCutoffHz;
+    private final Axis x = new Axis();
+    private final Axis y = new Axis();
+
+    private boolean primed;
+    private long lastNanos;
+
+    public OneEuroFilter(float minCutoffHz, float beta, float derivativeCutoffHz) {
+        if (minCutoffHz <= 0f || derivativeCutoffHz <= 0f || beta < 0f) {
+            throw new IllegalArgumentException("Cutoffs must be positive and beta non-negative.");
+        }
+        this.minCutoffHz = minCutoffHz;
+        this.beta = beta;
+        this.derivativeCutoffHz = derivativeCutoffHz;
+    }
+
+    @Override
+    public void apply(InputShaper.Sample sample) {
+        if (!primed) {
+            primed = true;
+            lastNanos = sample.timeNanos;
+            x.prime(sample.x);
+            y.prime(sample.y);
+            return;
+        }
+        float dt = Math.max(MIN_DT_SECONDS, (sample.timeNanos - lastNanos) / 1e9f);
+        lastNanos = sample.timeNanos;
+        sample.x = x.filter(sample.x, dt);
+        sample.y = y.filter(sample.y, dt);
+    }
+
+    @Override
+    public void reset() {
+        primed = false;
+    }
+
+    private static float alpha(float cutoffHz, float dt) {
+        float tau = 1f / (2f * (float) Math.PI * cutoffHz);
+        return 1f / (1f + tau / dt);
+    }
+
+    private final class Axis {
+
+        private float value;
+        private float derivative;
+
+        void prime(float initial) {
+            value = initial;
+            derivative = 0f;
+        }
+
+        float filter(float input, float dt) {
+            float rawDerivative = (input - value) / dt;
+            derivative += alpha(derivativeCutoffHz, dt) * (rawDerivative - derivative);
+            float cutoff = minCutoffHz + beta * Math.abs(derivative);
+            value += alpha(cutoff, dt) * (input - value);
+            return value;
+        }
+    }
+}
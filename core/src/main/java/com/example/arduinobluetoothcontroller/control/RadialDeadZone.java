@@ -0,0 +1,36 @@
+package com.example.arduinobluetoothcontroller.control;
+
+/**
+ * Zeroes the stick inside a circle of {@code radius} and rescales the rest of the travel so the
+ * output still starts at zero at the edge and reaches full scale at the rim. Unlike a per-axis
+ * dead zone this does not snap diagonal input onto an axis.
+ */
+public class RadialDeadZone implements InputShaper.Stage {
+
+    private final float radius;
+
+    public RadialDeadZone(float radius) {
+        if (radius < 0f || radius >= 1f) {
+            throw new IllegalArgumentException("Radius must be in [0, 1).");
+        }
+        this.radius = radius;
+    }
+
+    @Override
+    public void apply(InputShaper.Sample sample) {
+        float magnitude = (float) Math.sqrt(sample.x * sample.x + sample.y * sample.y);
+        if (magnitude <= radius) {
+            sample.x = 0f;
+            sample.y = 0f;
+            return;
+        }
+        float scaled = Math.min(1f, (magnitude - radius) / (1f - radius));
+        float factor = scaled / magnitude;
+        sample.x *= factor;
+        sample.y *= factor;
+    }
+
+    @Override
+    public void reset() {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.arduinobluetoothcontroller.control;
+
+/**
+ * Limits how fast each axis may move away from centre, in full scales per second. Moves toward
+ * centre, and the drop to zero when an axis reverses, pass straight through so easing off is
+ * never delayed.
+ */
+public class SlewRateLimiter implements InputShaper.Stage {
+
+    private final float ratePerSecond;
+    private final long firstStepNanos;
+
+    private float x;
+    private float y;
+    private boolean primed;
+    private long lastNanos;
+
+    /**
+     * {@code firstStepNanos} is the time credited to the first sample after a reset, which has
+     * no predecessor to measure from.
+     */
+    public SlewRateLimiter(float ratePerSecond, long firstStepNanos) {
+        if (ratePerSecond <= 0f) {
+            throw new IllegalArgumentException("Rate must be positive.");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.firstStepNanos = firstStepNanos;
+    }
+
+    @Override
+    public void apply(InputShaper.Sample sample) {
+        long elapsed = primed ? sample.timeNanos - lastNanos : firstStepNanos;
+        primed = true;
+        lastNanos = sample.timeNanos;
+        float maxStep = ratePerSecond * Math.max(0L, elapsed) / 1e9f;
+        x = limit(x, sample.x, maxStep);
+        y = limit(y, sample.y, maxStep);
+        sample.x = x;
+        sample.y = y;
+    }
+
+    @Override
+    public void reset() {
+        x = 0f;
+        y = 0f;
+        primed = false;
+    }
+
+    private static float limit(float previous, float target, float maxStep) {
+        if (target * previous < 0f) {
+            previous = 0f;
+        }
+        if (Math.abs(target) <= Math.abs(previous)) {
+            return target;
+        }
+        return target > previous
+                ? Math.min(target, previous + maxStep)
+                : Math.max(target, previous - maxStep);
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+/**
+ * Latest-value-wins command store. Each logical channel (drive, gripper, one per arm joint)
+ * owns a single pending slot; offering a new value while one is still unsent replaces it in
+ * place and counts the old one as superseded. Free-form text commands have no channel and use
+ * a small bounded FIFO that drops the oldest entry when full.
+ *
+ * <p>Pending commands are drained by lane: {@link #LANE_URGENT} (stop, i.e. zero-speed drive)
+ * before {@link #LANE_DISCRETE} (gripper, arm targets, text) before {@link #LANE_STREAMING}
+ * (moving drive), and in the order their slot first became pending within a lane. The time
+ * each command spent queued is recorded per lane, on the queue's {@link Clock}.
+ */
+public class CommandQueue {
+
+    public static final int MAX_ARM_JOINTS = 4;
+    public static final int CHANNEL_DRIVE = 0;
+    public static final int CHANNEL_GRIPPER = 1;
+    public static final int CHANNEL_COUNT = 2 + MAX_ARM_JOINTS;
+
+    public static final int LANE_URGENT = 0;
+    public static final int LANE_DISCRETE = 1;
+    public static final int LANE_STREAMING = 2;
+    public static final int LANE_COUNT = 3;
+
+    public static final int STOP_ANGLE = 90;
+
+    private static final int RAW_CAPACITY = 16;
+
+    public static final class Command {
+        public static final int TYPE_DRIVE = 0;
+        public static final int TYPE_ARM = 1;
+        public static final int TYPE_GRIPPER = 2;
+        public static final int TYPE_RAW = 3;
+        public static final int TYPE_ARM_MOVE = 4;
+
+        private int type;
+        private int channel;
+        private int first;
+        private int second;
+        private int third;
+        private int fourth;
+        private String raw;
+        private int lane;
+        private long waitNanos;
+
+        public int getType() {
+            return type;
+        }
+
+        public int getChannel() {
+            return channel;
+        }
+
+        public int getFirst() {
+            return first;
+        }
+
+        public int getSecond() {
+            return second;
+        }
+
+        /**
+         * Duration in milliseconds of a {@link #TYPE_ARM_MOVE}.
+         */
+        public int getThird() {
+            return third;
+        }
+
+        /**
+         * Profile code of a {@link #TYPE_ARM_MOVE}.
+         */
+        public int getFourth() {
+            return fourth;
+        }
+
+        public String getRaw() {
+            return raw;
+        }
+
+        public int getLane() {
+            return lane;
+        }
+
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+    }
+
+    private final int[] firstValues = new int[CHANNEL_COUNT];
+    private final int[] secondValues = new int[CHANNEL_COUNT];
+    private final int[] thirdValues = new int[CHANNEL_COUNT];
+    private final Clock clock;
+    private final int[] fourthValues = new int[CHANNEL_COUNT];
+    private final int[] types = new int[CHANNEL_COUNT];
+    private final long[] pendingOrder = new long[CHANNEL_COUNT];
+    private final long[] offeredNanos = new long[CHANNEL_COUNT];
+    private final int[] lanes = new int[CHANNEL_COUNT];
+    private final boolean[] pending = new boolean[CHANNEL_COUNT];
+    private final long[] supersededCounts = new long[CHANNEL_COUNT];
+    private final String[] rawCommands = new String[RAW_CAPACITY];
+    private final long[] rawOrder = new long[RAW_CAPACITY];
+    private final long[] rawOfferedNanos = new long[RAW_CAPACITY];
+    private final long[] laneCounts = new long[LANE_COUNT];
+    private final long[] laneWaitTotals = new long[LANE_COUNT];
+    private final long[] laneWaitMaxima = new long[LANE_COUNT];
+
+    private int pendingCount;
+    private int rawHead;
+    private int rawCount;
+    private long nextOrder;
+    private long supersededTotal;
+    private long droppedRawCount;
+
+    public CommandQueue() {
+        this(Clock.SYSTEM);
+    }
+
+    public CommandQueue(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public static int channelForJoint(int joint) {
+        return 2 + joint;
+    }
+
+    public synchronized void offerDrive(int speed, int angle) {
+        offer(CHANNEL_DRIVE, speed == 0 ? LANE_URGENT : LANE_STREAMING, speed, angle);
+    }
+
+    public synchronized void offerStop() {
+        offer(CHANNEL_DRIVE, LANE_URGENT, 0, STOP_ANGLE);
+    }
+
+    public synchronized void offerArm(int joint, int angle) {
+        checkJoint(joint);
+        offer(channelForJoint(joint), LANE_DISCRETE, joint, angle);
+    }
+
+    /**
+     * A planned move shares the joint's channel with plain angles: whichever was offered last
+     * is the one sent.
+     */
+    public synchronized void offerArmMove(int joint, int angle, int durationMillis, int profile) {
+        checkJoint(joint);
+        int channel = channelForJoint(joint);
+        offer(channel, LANE_DISCRETE, joint, angle);
+        types[channel] = Command.TYPE_ARM_MOVE;
+        thirdValues[channel] = durationMillis;
+        fourthValues[channel] = profile;
+    }
+
+    public synchronized void offerGripper(boolean grab) {
+        offer(CHANNEL_GRIPPER, LANE_DISCRETE, grab ? 1 : 0, 0);
+    }
+
+    public synchronized void offerRaw(String command) {
+        if (rawCount == RAW_CAPACITY) {
+            rawCommands[rawHead] = null;
+            rawHead = (rawHead + 1) % RAW_CAPACITY;
+            rawCount--;
+            droppedRawCount++;
+        }
+        int index = (rawHead + rawCount) % RAW_CAPACITY;
+        rawCommands[index] = command;
+        rawOrder[index] = nextOrder++;
+        rawOfferedNanos[index] = clock.nanoTime();
+        rawCount++;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until a command is pending and copies it into {@code target}.
+     */
+    public synchronized void take(Command target) throws InterruptedException {
+        while (pendingCount == 0 && rawCount == 0) {
+            wait();
+        }
+        poll(target);
+    }
+
+    /**
+     * Waits until a command is pending or {@code deadlineNanos} on this queue's clock passes.
+     * Returns {@code false} on timeout.
+     */
+    public synchronized boolean pollUntil(Command target, long deadlineNanos)
+            throws InterruptedException {
+        while (pendingCount == 0 && rawCount == 0) {
+            long remaining = deadlineNanos - clock.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+        }
+        return poll(target);
+    }
+
+    public synchronized boolean poll(Command target) {
+        int channel = -1;
+        int lane = LANE_COUNT;
+        long order = Long.MAX_VALUE;
+        for (int i = 0; i < CHANNEL_COUNT; i++) {
+            if (pending[i] && (lanes[i] < lane || (lanes[i] == lane && pendingOrder[i] < order))) {
+                channel = i;
+                lane = lanes[i];
+                order = pendingOrder[i];
+            }
+        }
+        long now = clock.nanoTime();
+        if (rawCount > 0 && (LANE_DISCRETE < lane
+                || (LANE_DISCRETE == lane && rawOrder[rawHead] < order))) {
+            target.type = Command.TYPE_RAW;
+            target.channel = -1;
+            target.raw = rawCommands[rawHead];
+            target.lane = LANE_DISCRETE;
+            target.waitNanos = now - rawOfferedNanos[rawHead];
+            rawCommands[rawHead] = null;
+            rawHead = (rawHead + 1) % RAW_CAPACITY;
+            rawCount--;
+            recordWait(target);
+            return true;
+        }
+        if (channel < 0) {
+            return false;
+        }
+        pending[channel] = false;
+        pendingCount--;
+        target.type = types[channel];
+        target.channel = channel;
+        target.first = firstValues[channel];
+        target.second = secondValues[channel];
+        target.third = thirdValues[channel];
+        target.fourth = fourthValues[channel];
+        target.raw = null;
+        target.lane = lane;
+        target.waitNanos = now - offeredNanos[channel];
+        recordWait(target);
+        return true;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < CHANNEL_COUNT; i++) {
+            pending[i] = false;
+        }
+        for (int i = 0; i < RAW_CAPACITY; i++) {
+            rawCommands[i] = null;
+        }
+        pendingCount = 0;
+        rawHead = 0;
+        rawCount = 0;
+    }
+
+    public synchronized int size() {
+        return pendingCount + rawCount;
+    }
+
+    public synchronized long getSupersededCount() {
+        return supersededTotal;
+    }
+
+    public synchronized long getSupersededCount(int channel) {
+        return supersededCounts[channel];
+    }
+
+    public synchronized long getDroppedRawCount() {
+        return droppedRawCount;
+    }
+
+    public synchronized long getDequeuedCount(int lane) {
+        return laneCounts[lane];
+    }
+
+    public synchronized long getMeanWaitNanos(int lane) {
+        return laneCounts[lane] == 0 ? 0 : laneWaitTotals[lane] / laneCounts[lane];
+    }
+
+    public synchronized long getMaxWaitNanos(int lane) {
+        return laneWaitMaxima[lane];
+    }
+
+    public synchronized void resetWaitStats() {
+        for (int i = 0; i < LANE_COUNT; i++) {
+            laneCounts[i] = 0;
+            laneWaitTotals[i] = 0;
+            laneWaitMaxima[i] = 0;
+        }
+    }
+
+    private void recordWait(Command command) {
+        int lane = command.lane;
+        laneCounts[lane]++;
+        laneWaitTotals[lane] += command.waitNanos;
+        if (command.waitNanos > laneWaitMaxima[lane]) {
+            laneWaitMaxima[lane] = command.waitNanos;
+        }
+    }
+
+    private void offer(int channel, int lane, int first, int second) {
+        types[channel] = typeOf(channel);
+        firstValues[channel] = first;
+        secondValues[channel] = second;
+        lanes[channel] = lane;
+        offeredNanos[channel] = clock.nanoTime();
+        if (pending[channel]) {
+            supersededCounts[channel]++;
+            supersededTotal++;
+            return;
+        }
+        pending[channel] = true;
+        pendingOrder[channel] = nextOrder++;
+        pendingCount++;
+        notifyAll();
+    }
+
+    private static void checkJoint(int joint) {
+        if (joint < 0 || joint >= MAX_ARM_JOINTS) {
+            throw new IllegalArgumentException("Unsupported joint " + joint);
+        }
+    }
+
+    private static int typeOf(int channel) {
+        if (channel == CHANNEL_DRIVE) {
+            return Command.TYPE_DRIVE;
+        }
+        return channel == CHANNEL_GRIPPER ? Command.TYPE_GRIPPER : Command.TYPE_ARM;
+    }
+}
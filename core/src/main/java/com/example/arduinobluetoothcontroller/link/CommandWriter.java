@@ -0,0 +1,332 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.protocol.CommandEncoder;
+import com.example.arduinobluetoothcontroller.protocol.CommandProtocol;
+import com.example.arduinobluetoothcontroller.protocol.TextCommandEncoder;
+import com.example.arduinobluetoothcontroller.time.Clock;
+import com.example.arduinobluetoothcontroller.trace.SessionRecorder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Drains a {@link CommandQueue} onto an output stream. {@link #run(OutputStream)} is the body
+ * of the single writer thread.
+ *
+ * <p>Frames are batched: after the first command arrives the writer keeps collecting for up to
+ * the batch window, then issues one {@code write} and one {@code flush} for the whole batch, so
+ * concurrent drive and arm traffic shares RFCOMM packets. Urgent commands end the window
+ * immediately.
+ */
+public class CommandWriter {
+
+    public interface ErrorListener {
+        void onWriteError(IOException exception);
+    }
+
+    /**
+     * Told about every completed flush on the writer thread, with the time spent blocked in
+     * {@code write} and {@code flush}.
+     */
+    public interface FlushObserver {
+        void onFlush(int frames, int bytes, long writeNanos);
+    }
+
+    public static final long DEFAULT_BATCH_WINDOW_NANOS = 3_000_000L;
+
+    private static final int BATCH_CAPACITY = 512;
+
+    private final CommandQueue queue;
+    private final ErrorListener errorListener;
+    private final Clock clock;
+    private final CommandQueue.Command command = new CommandQueue.Command();
+    private final byte[] batchBuffer = new byte[BATCH_CAPACITY];
+    private final int[] batchSequences = new int[BATCH_CAPACITY / 4];
+    private final int[] batchFrameEnds = new int[BATCH_CAPACITY / 4];
+
+    private volatile CommandProtocol protocol = CommandProtocol.TEXT;
+    private volatile LatencyTracker latencyTracker;
+    private volatile SessionRecorder recorder;
+    private volatile FlushObserver flushObserver;
+    private volatile CreditWindow creditWindow;
+    private int batchSequenceCount;
+    private boolean lastSequenced;
+    private volatile long batchWindowNanos = DEFAULT_BATCH_WINDOW_NANOS;
+
+    // Written by the writer thread only.
+    private volatile long flushCount;
+    private volatile long frameCount;
+    private volatile long byteCount;
+    private volatile int maxFramesPerFlush;
+    private volatile int maxBytesPerFlush;
+
+    public CommandWriter(CommandQueue queue, ErrorListener errorListener) {
+        this(queue, errorListener, queue.getClock());
+    }
+
+    /**
+     * {@code clock} times flushes, stamps sent commands for latency tracking and measures the
+     * batch window; it should be the queue's clock.
+     */
+    public CommandWriter(CommandQueue queue, ErrorListener errorListener, Clock clock) {
+        this.queue = queue;
+        this.errorListener = errorListener;
+        this.clock = clock;
+    }
+
+    public CommandQueue getQueue() {
+        return queue;
+    }
+
+    public void setProtocol(CommandProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    public CommandProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Enables sequence-numbered frames whose acknowledgements feed {@code tracker}, or plain
+     * frames when {@code null}.
+     */
+    public void setLatencyTracker(LatencyTracker tracker) {
+        latencyTracker = tracker;
+    }
+
+    public LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    /**
+     * Records every written frame to {@code recorder}, or nothing when {@code null}.
+     */
+    public void setRecorder(SessionRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public void setFlushObserver(FlushObserver observer) {
+        flushObserver = observer;
+    }
+
+    /**
+     * Limits bytes on the wire to the firmware's receive credits, or sends open-loop when
+     * {@code null}.
+     */
+    public void setCreditWindow(CreditWindow window) {
+        creditWindow = window;
+    }
+
+    public CreditWindow getCreditWindow() {
+        return creditWindow;
+    }
+
+    /**
+     * Zero disables waiting; frames already queued are still coalesced into one flush.
+     */
+    public void setBatchWindowNanos(long windowNanos) {
+        batchWindowNanos = Math.max(0L, windowNanos);
+    }
+
+    public long getBatchWindowNanos() {
+        return batchWindowNanos;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public double getMeanFramesPerFlush() {
+        long flushes = flushCount;
+        return flushes == 0 ? 0d : (double) frameCount / flushes;
+    }
+
+    public double getMeanBytesPerFlush() {
+        long flushes = flushCount;
+        return flushes == 0 ? 0d : (double) byteCount / flushes;
+    }
+
+    public int getMaxFramesPerFlush() {
+        return maxFramesPerFlush;
+    }
+
+    public int getMaxBytesPerFlush() {
+        return maxBytesPerFlush;
+    }
+
+    /**
+     * Writes commands until the calling thread is interrupted.
+     */
+    public void run(OutputStream stream) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                queue.take(command);
+                writeBatch(stream);
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatch(OutputStream stream) throws InterruptedException {
+        long deadline = clock.nanoTime() + batchWindowNanos;
+        boolean urgent = command.getLane() == CommandQueue.LANE_URGENT;
+        int length = 0;
+        int frames = 0;
+        try {
+            while (true) {
+                int size = encode(command, batchBuffer, length);
+                if (size < 0 && length > 0) {
+                    flushBatch(stream, length, frames);
+                    length = 0;
+                    frames = 0;
+                    size = encode(command, batchBuffer, 0);
+                }
+                CreditWindow window = creditWindow;
+                if (size < 0) {
+                    byte[] data = (command.getRaw() + "\n").getBytes(StandardCharsets.UTF_8);
+                    if (window != null) {
+                        window.awaitCredit(data.length);
+                        window.onSent(data.length);
+                    }
+                    long writeStart = clock.nanoTime();
+                    stream.write(data);
+                    stream.flush();
+                    recordFlush(1, data.length, clock.nanoTime() - writeStart);
+                    SessionRecorder sessionRecorder = recorder;
+                    if (sessionRecorder != null) {
+                        sessionRecorder.record(
+                                SessionRecorder.DIRECTION_OUTBOUND, data, 0, data.length);
+                    }
+                } else if (window == null || length + size <= window.available()) {
+                    length += size;
+                    batchFrameEnds[frames++] = length;
+                } else {
+                    // Out of credit: the frame stays unsent, so its sequence number does too.
+                    if (lastSequenced) {
+                        batchSequenceCount--;
+                    }
+                    if (command.getLane() == CommandQueue.LANE_STREAMING
+                            && window.getOverflowPolicy()
+                                    == CreditWindow.OverflowPolicy.DROP_STREAMING) {
+                        window.onDropped(size);
+                    } else {
+                        if (length > 0) {
+                            flushBatch(stream, length, frames);
+                            frames = 0;
+                        }
+                        window.awaitCredit(size);
+                        length = encode(command, batchBuffer, 0);
+                        batchFrameEnds[frames++] = length;
+                    }
+                }
+
+                if (BATCH_CAPACITY - length < CommandEncoder.MAX_FRAME_LENGTH) {
+                    break;
+                }
+                boolean more = urgent ? queue.poll(command) : queue.pollUntil(command, deadline);
+                if (!more) {
+                    break;
+                }
+                urgent |= command.getLane() == CommandQueue.LANE_URGENT;
+            }
+            if (length > 0) {
+                flushBatch(stream, length, frames);
+            }
+        } catch (IOException ioException) {
+            errorListener.onWriteError(ioException);
+        }
+    }
+
+    private void flushBatch(OutputStream stream, int length, int frames) throws IOException {
+        CreditWindow window = creditWindow;
+        if (window != null) {
+            window.onSent(length);
+        }
+        long writeStart = clock.nanoTime();
+        stream.write(batchBuffer, 0, length);
+        stream.flush();
+        recordFlush(frames, length, clock.nanoTime() - writeStart);
+
+        SessionRecorder sessionRecorder = recorder;
+        if (sessionRecorder != null) {
+            int start = 0;
+            for (int i = 0; i < frames; i++) {
+                int end = batchFrameEnds[i];
+                sessionRecorder.record(
+                        SessionRecorder.DIRECTION_OUTBOUND, batchBuffer, start, end - start);
+                start = end;
+            }
+        }
+
+        LatencyTracker tracker = latencyTracker;
+        if (tracker != null && batchSequenceCount > 0) {
+            long now = clock.nanoTime();
+            for (int i = 0; i < batchSequenceCount; i++) {
+                tracker.onSent(batchSequences[i], now);
+            }
+        }
+        batchSequenceCount = 0;
+    }
+
+    private void recordFlush(int frames, int length, long writeNanos) {
+        FlushObserver observer = flushObserver;
+        if (observer != null) {
+            observer.onFlush(frames, length, writeNanos);
+        }
+        flushCount++;
+        frameCount += frames;
+        byteCount += length;
+        if (frames > maxFramesPerFlush) {
+            maxFramesPerFlush = frames;
+        }
+        if (length > maxBytesPerFlush) {
+            maxBytesPerFlush = length;
+        }
+    }
+
+    private int encode(CommandQueue.Command target, byte[] buffer, int offset) {
+        if (target.getType() == CommandQueue.Command.TYPE_RAW) {
+            lastSequenced = false;
+            return TextCommandEncoder.encodeLine(buffer, offset, target.getRaw());
+        }
+        CommandEncoder encoder = protocol.getEncoder();
+        LatencyTracker tracker = latencyTracker;
+        int sequence = CommandEncoder.NO_SEQUENCE;
+        if (tracker != null) {
+            sequence = tracker.nextSequence();
+        }
+        int size;
+        switch (target.getType()) {
+            case CommandQueue.Command.TYPE_DRIVE:
+                size = encoder.encodeDrive(
+                        buffer, offset, sequence, target.getFirst(), target.getSecond());
+                break;
+            case CommandQueue.Command.TYPE_ARM:
+                size = encoder.encodeArm(
+                        buffer, offset, sequence, target.getFirst(), target.getSecond());
+                break;
+            case CommandQueue.Command.TYPE_ARM_MOVE:
+                size = encoder.encodeArmMove(buffer, offset, sequence, target.getFirst(),
+                        target.getSecond(), target.getThird(), target.getFourth());
+                break;
+            default:
+                size = encoder.encodeGripper(buffer, offset, sequence, target.getFirst() != 0);
+                break;
+        }
+        lastSequenced = tracker != null && size >= 0;
+        if (lastSequenced) {
+            batchSequences[batchSequenceCount++] = sequence;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.arduinobluetoothcontroller.link;
+
+/**
+ * The last setpoint sent on each control channel, so it can be restored after a reconnect.
+ */
+class ControlState {
+
+    private final int[] armAngles = new int[CommandQueue.MAX_ARM_JOINTS];
+    private final boolean[] armKnown = new boolean[CommandQueue.MAX_ARM_JOINTS];
+    // A joint whose last setpoint was a planned move is restored as that move.
+    private final boolean[] armMoves = new boolean[CommandQueue.MAX_ARM_JOINTS];
+    private final int[] armMoveMillis = new int[CommandQueue.MAX_ARM_JOINTS];
+    private final int[] armMoveProfiles = new int[CommandQueue.MAX_ARM_JOINTS];
+    private boolean driveKnown;
+    private int driveSpeed;
+    private int driveAngle;
+    private boolean gripperKnown;
+    private boolean gripperClosed;
+
+    synchronized void recordDrive(int speed, int angle) {
+        driveKnown = true;
+        driveSpeed = speed;
+        driveAngle = angle;
+    }
+
+    synchronized void recordArm(int joint, int angle) {
+        if (joint >= 0 && joint < armAngles.length) {
+            armKnown[joint] = true;
+            armMoves[joint] = false;
+            armAngles[joint] = angle;
+        }
+    }
+
+    synchronized void recordArmMove(int joint, int angle, int durationMillis, int profile) {
+        if (joint >= 0 && joint < armAngles.length) {
+            armKnown[joint] = true;
+            armMoves[joint] = true;
+            armAngles[joint] = angle;
+            armMoveMillis[joint] = durationMillis;
+            armMoveProfiles[joint] = profile;
+        }
+    }
+
+    synchronized void recordGripper(boolean grab) {
+        gripperKnown = true;
+        gripperClosed = grab;
+    }
+
+    /**
+     * Queues every known setpoint; the drive only when {@code includeDrive}.
+     */
+    synchronized void replay(CommandQueue queue, boolean includeDrive) {
+        for (int joint = 0; joint < armAngles.length; joint++) {
+            if (armMoves[joint]) {
+                queue.offerArmMove(joint, armAngles[joint], armMoveMillis[joint],
+                        armMoveProfiles[joint]);
+            } else if (armKnown[joint]) {
+                queue.offerArm(joint, armAngles[joint]);
+            }
+        }
+        if (gripperKnown) {
+            queue.offerGripper(gripperClosed);
+        }
+        if (includeDrive && driveKnown) {
+            queue.offerDrive(driveSpeed, driveAngle);
+        }
+    }
+
+    synchronized void clear() {
+        driveKnown = false;
+        gripperKnown = false;
+        for (int joint = 0; joint < armKnown.length; joint++) {
+            armKnown[joint] = false;
+            armMoves[joint] = false;
+        }
+    }
+}
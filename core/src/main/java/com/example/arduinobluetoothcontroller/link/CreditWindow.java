@@ -0,0 +1,185 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receive credits granted by the firmware. Each grant carries the firmware's running count of
+ * bytes received (modulo 2^16) and the free space left in its RX buffer, so the writer may have
+ * at most {@code received + free - sent} bytes on the wire. Grants are cumulative, which makes
+ * a lost grant harmless.
+ *
+ * <p>Flow control engages with the first grant of a connection, so firmware that never sends
+ * one is driven open-loop as before. If grants stop arriving for {@link #DEFAULT_GRANT_TIMEOUT_NANOS}
+ * the window disengages again until the next one. Bytes lost on the radio are never counted by
+ * the firmware; once the writer has been idle for {@link #DEFAULT_SETTLE_NANOS} nothing can
+ * still be in flight, and the next grant resynchronises the sent count.
+ */
+public class CreditWindow {
+
+    /**
+     * What the writer does with a streaming frame that does not fit in the granted window.
+     * Urgent and discrete frames are always held.
+     */
+    public enum OverflowPolicy {
+        /** Wait for credit; newer streaming commands keep superseding in the queue meanwhile. */
+        HOLD,
+        /** Discard the frame and count it; the next periodic command replaces it. */
+        DROP_STREAMING
+    }
+
+    public static final long DEFAULT_GRANT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    public static final long DEFAULT_SETTLE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private static final long WAIT_SLICE_MILLIS = 10L;
+
+    private final Clock clock;
+
+    private boolean enabled;
+    private OverflowPolicy policy = OverflowPolicy.HOLD;
+    private boolean engaged;
+    private long sentBytes;
+    private long receivedBytes;
+    private long limitBytes;
+    private int largestGrant;
+    private long lastGrantNanos;
+    private long lastSendNanos;
+
+    private long grantCount;
+    private long heldCount;
+    private long droppedFrames;
+    private long droppedBytes;
+    private long resyncCount;
+
+    public CreditWindow(Clock clock) {
+        this.clock = clock;
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            engaged = false;
+        }
+        notifyAll();
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void setOverflowPolicy(OverflowPolicy policy) {
+        if (policy != null) {
+            this.policy = policy;
+        }
+    }
+
+    public synchronized OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+
+    /**
+     * Forgets the previous connection's counts; the window re-engages on the next grant.
+     */
+    public synchronized void reset() {
+        engaged = false;
+        sentBytes = 0L;
+        receivedBytes = 0L;
+        limitBytes = 0L;
+        largestGrant = 0;
+        notifyAll();
+    }
+
+    /**
+     * Applies a grant from the firmware. {@code received} is its byte counter modulo 2^16.
+     */
+    public synchronized void onGrant(int received, int free) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.nanoTime();
+        // Unwrap the 16-bit counter against our own send count.
+        long delta = (short) (received - (int) sentBytes);
+        receivedBytes = sentBytes + delta;
+        if (!engaged || (delta != 0 && now - lastSendNanos >= DEFAULT_SETTLE_NANOS)) {
+            if (engaged) {
+                resyncCount++;
+            }
+            sentBytes = receivedBytes;
+            engaged = true;
+        }
+        limitBytes = receivedBytes + Math.max(0, free);
+        largestGrant = Math.max(largestGrant, free);
+        lastGrantNanos = now;
+        grantCount++;
+        notifyAll();
+    }
+
+    /**
+     * Bytes the writer may send now, or {@link Integer#MAX_VALUE} while flow control is not
+     * engaged.
+     */
+    public synchronized int available() {
+        if (!isEngaged()) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.max(0L, Math.min(Integer.MAX_VALUE, limitBytes - sentBytes));
+    }
+
+    /**
+     * Accounts for {@code bytes} about to be written; called before the write so a grant that
+     * races it is never mistaken for an idle link.
+     */
+    public synchronized void onSent(int bytes) {
+        sentBytes += bytes;
+        lastSendNanos = clock.nanoTime();
+    }
+
+    /**
+     * Blocks until {@code bytes} fit in the window or flow control disengages. A frame larger
+     * than any window granted so far only waits for the largest one, and always for at least
+     * one byte of credit, even when every grant so far was for a full buffer.
+     */
+    public synchronized void awaitCredit(int bytes) throws InterruptedException {
+        heldCount++;
+        while (available() < Math.max(1, Math.min(bytes, largestGrant))) {
+            wait(WAIT_SLICE_MILLIS);
+        }
+    }
+
+    synchronized void onDropped(int bytes) {
+        droppedFrames++;
+        droppedBytes += bytes;
+    }
+
+    public synchronized boolean isEngaged() {
+        if (engaged && clock.nanoTime() - lastGrantNanos > DEFAULT_GRANT_TIMEOUT_NANOS) {
+            engaged = false;
+        }
+        return engaged;
+    }
+
+    public synchronized long getInFlightBytes() {
+        return engaged ? sentBytes - receivedBytes : 0L;
+    }
+
+    public synchronized long getGrantCount() {
+        return grantCount;
+    }
+
+    public synchronized long getHeldCount() {
+        return heldCount;
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public synchronized long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    public synchronized long getResyncCount() {
+        return resyncCount;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.arduinobluetoothcontroller.link;
+
+public final class LatencySnapshot {
+
+    private final long count;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final long lostCount;
+
+    LatencySnapshot(long count, long p50Micros, long p99Micros, long maxMicros, long lostCount) {
+        this.count = count;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+        this.lostCount = lostCount;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public long getLostCount() {
+        return lostCount;
+    }
+}
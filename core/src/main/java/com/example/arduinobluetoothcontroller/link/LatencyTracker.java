@@ -0,0 +1,114 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches sequence-numbered commands with firmware {@code <ACK:seq>} replies and keeps
+ * round-trip times in a sliding window made of {@link #SLICES} rotating histograms. A send
+ * whose slot is reused before it was acknowledged counts as lost.
+ */
+public class LatencyTracker {
+
+    public static final int SEQUENCE_COUNT = 256;
+    public static final long DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final int SLICES = 4;
+
+    private final long[] sentNanos = new long[SEQUENCE_COUNT];
+    private final boolean[] outstanding = new boolean[SEQUENCE_COUNT];
+    private final LatencyHistogram[] slices = new LatencyHistogram[SLICES];
+    private final LatencyHistogram merged = new LatencyHistogram();
+    private final Clock clock;
+
+    private int nextSequence;
+    private long sliceNanos;
+    private long sliceStartNanos;
+    private int currentSlice;
+    private long lostCount;
+
+    public LatencyTracker() {
+        this(Clock.SYSTEM, DEFAULT_WINDOW_NANOS);
+    }
+
+    public LatencyTracker(long windowNanos) {
+        this(Clock.SYSTEM, windowNanos);
+    }
+
+    public LatencyTracker(Clock clock, long windowNanos) {
+        this.clock = clock;
+        for (int i = 0; i < SLICES; i++) {
+            slices[i] = new LatencyHistogram();
+        }
+        setWindowNanos(windowNanos);
+    }
+
+    public synchronized void setWindowNanos(long windowNanos) {
+        sliceNanos = Math.max(1L, windowNanos / SLICES);
+        sliceStartNanos = clock.nanoTime();
+        for (LatencyHistogram slice : slices) {
+            slice.clear();
+        }
+    }
+
+    public synchronized int nextSequence() {
+        int sequence = nextSequence;
+        nextSequence = (nextSequence + 1) % SEQUENCE_COUNT;
+        return sequence;
+    }
+
+    public synchronized void onSent(int sequence, long nowNanos) {
+        if (outstanding[sequence]) {
+            lostCount++;
+        }
+        sentNanos[sequence] = nowNanos;
+        outstanding[sequence] = true;
+    }
+
+    public synchronized void onAck(int sequence, long nowNanos) {
+        if (sequence < 0 || sequence >= SEQUENCE_COUNT || !outstanding[sequence]) {
+            return;
+        }
+        outstanding[sequence] = false;
+        rotate(nowNanos);
+        slices[currentSlice].recordMicros((nowNanos - sentNanos[sequence]) / 1000L);
+    }
+
+    public synchronized LatencySnapshot snapshot() {
+        rotate(clock.nanoTime());
+        merged.clear();
+        for (LatencyHistogram slice : slices) {
+            merged.add(slice);
+        }
+        return new LatencySnapshot(
+                merged.getCount(),
+                merged.getPercentileMicros(50),
+                merged.getPercentileMicros(99),
+                merged.getMaxMicros(),
+                lostCount);
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < SEQUENCE_COUNT; i++) {
+            outstanding[i] = false;
+        }
+        for (LatencyHistogram slice : slices) {
+            slice.clear();
+        }
+        lostCount = 0;
+        sliceStartNanos = clock.nanoTime();
+    }
+
+    private void rotate(long nowNanos) {
+        long elapsedSlices = (nowNanos - sliceStartNanos) / sliceNanos;
+        if (elapsedSlices <= 0) {
+            return;
+        }
+        for (long i = 0; i < Math.min(elapsedSlices, SLICES); i++) {
+            currentSlice = (currentSlice + 1) % SLICES;
+            slices[currentSlice].clear();
+        }
+        sliceStartNanos += elapsedSlices * sliceNanos;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads shared by a set of {@link VehicleLink}s: a bounded pool for connection, reader and
+ * writer work and a single scheduler for watchdog and reconnect timers. A connected link holds
+ * two pool threads (its blocking reader and writer) and an idle one holds none; pool threads
+ * retire after a short keep-alive.
+ */
+public class LinkExecutors {
+
+    // Reader, writer and connection work, plus one for a loop still unwinding from the
+    // previous connection.
+    private static final int THREADS_PER_LINK = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    private final int maxLinks;
+    private final ThreadPoolExecutor ioPool;
+    private final ScheduledExecutorService scheduler;
+
+    public LinkExecutors(int maxLinks) {
+        if (maxLinks <= 0) {
+            throw new IllegalArgumentException("maxLinks must be positive.");
+        }
+        this.maxLinks = maxLinks;
+        ioPool = new ThreadPoolExecutor(0, maxLinks * THREADS_PER_LINK,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                daemonThreads("vehicle-link-"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("vehicle-timer-"));
+    }
+
+    public int getMaxLinks() {
+        return maxLinks;
+    }
+
+    public ExecutorService getIoPool() {
+        return ioPool;
+    }
+
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * An executor that runs its tasks one at a time, in order, on the shared pool.
+     */
+    public Executor newSerialExecutor() {
+        return new SerialExecutor(ioPool);
+    }
+
+    public int getActiveThreadCount() {
+        return ioPool.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return ioPool.getPoolSize();
+    }
+
+    public void shutdown() {
+        ioPool.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class SerialExecutor implements Executor {
+
+        private final Executor delegate;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean draining;
+
+        SerialExecutor(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            synchronized (this) {
+                tasks.add(task);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                delegate.execute(this::drain);
+            } catch (RuntimeException rejected) {
+                synchronized (this) {
+                    draining = false;
+                    tasks.clear();
+                }
+                throw rejected;
+            }
+        }
+
+        // Runs queued tasks back to back on one pool thread instead of handing each to a new
+        // thread.
+        private void drain() {
+            while (true) {
+                Runnable next;
+                synchronized (this) {
+                    next = tasks.poll();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    next.run();
+                } catch (RuntimeException exception) {
+                    // Report it like an unqueued task would, but keep the queue moving.
+                    Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, exception);
+                }
+            }
+        }
+    }
+}
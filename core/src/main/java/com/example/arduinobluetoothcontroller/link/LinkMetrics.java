@@ -0,0 +1,104 @@
+package com.example.arduinobluetoothcontroller.link;
+
+/**
+ * Point-in-time counters for one link, as reported by {@link VehicleLinkManager}.
+ */
+public final class LinkMetrics {
+
+    private final String address;
+    private final boolean connected;
+    private final boolean degraded;
+    private final boolean reconnecting;
+    private final long reconnectCount;
+    private final long bytesWritten;
+    private final long framesWritten;
+    private final long flushCount;
+    private final long supersededCount;
+    private final long creditDroppedFrames;
+    private final long listenerDroppedEvents;
+    private final double driveRateHz;
+    private final double throughputBytesPerSecond;
+    private final LatencySnapshot latency;
+
+    private LinkMetrics(String address, VehicleLink link) {
+        this.address = address;
+        connected = link.isConnected();
+        degraded = link.getWatchdog().isDegraded();
+        reconnecting = link.isReconnecting();
+        reconnectCount = link.getReconnectCount();
+        CommandWriter writer = link.getCommandWriter();
+        bytesWritten = writer.getByteCount();
+        framesWritten = writer.getFrameCount();
+        flushCount = writer.getFlushCount();
+        supersededCount = link.getCommandQueue().getSupersededCount();
+        creditDroppedFrames = link.getCreditWindow().getDroppedFrames();
+        listenerDroppedEvents = link.getListenerDroppedCount();
+        SendRateController rate = link.getSendRateController();
+        driveRateHz = rate.getDrive().getRateHz();
+        throughputBytesPerSecond = rate.getThroughputBytesPerSecond();
+        latency = link.isLatencyTrackingEnabled() ? link.getLatencySnapshot() : null;
+    }
+
+    static LinkMetrics capture(String address, VehicleLink link) {
+        return new LinkMetrics(address, link);
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public boolean isReconnecting() {
+        return reconnecting;
+    }
+
+    public long getReconnectCount() {
+        return reconnectCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getFramesWritten() {
+        return framesWritten;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public long getSupersededCount() {
+        return supersededCount;
+    }
+
+    public long getCreditDroppedFrames() {
+        return creditDroppedFrames;
+    }
+
+    public long getListenerDroppedEvents() {
+        return listenerDroppedEvents;
+    }
+
+    public double getDriveRateHz() {
+        return driveRateHz;
+    }
+
+    public double getThroughputBytesPerSecond() {
+        return throughputBytesPerSecond;
+    }
+
+    /**
+     * Round-trip latency, or {@code null} when latency tracking is off for the link.
+     */
+    public LatencySnapshot getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.arduinobluetoothcontroller.link;
+
+/**
+ * Phone-side liveness check for a connection. The link is degraded when nothing at all has
+ * been received for the timeout (telemetry, ACKs and credits all count), or when commands are
+ * waiting but the writer has not completed a flush for the timeout. {@link #check} is polled
+ * periodically and reports state changes; it recovers as soon as both directions move again.
+ */
+public class LinkWatchdog {
+
+    public enum Reason {
+        TELEMETRY_SILENT,
+        WRITE_STALLED
+    }
+
+    private volatile long timeoutNanos;
+    private volatile long lastInboundNanos;
+
+    // Owned by the polling thread.
+    private long lastFlushCount;
+    private long lastOutboundNanos;
+    private volatile Reason degradedReason;
+    private volatile long degradedCount;
+
+    public LinkWatchdog(long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Zero disables the watchdog.
+     */
+    public void setTimeoutNanos(long timeoutNanos) {
+        this.timeoutNanos = Math.max(0L, timeoutNanos);
+    }
+
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    public synchronized void reset(long nowNanos, long flushCount) {
+        lastInboundNanos = nowNanos;
+        lastOutboundNanos = nowNanos;
+        lastFlushCount = flushCount;
+        degradedReason = null;
+    }
+
+    public void onInbound(long nowNanos) {
+        lastInboundNanos = nowNanos;
+    }
+
+    /**
+     * Returns true if the link changed between healthy and degraded.
+     */
+    public synchronized boolean check(long nowNanos, long flushCount, boolean outboundPending) {
+        if (flushCount != lastFlushCount) {
+            lastFlushCount = flushCount;
+            lastOutboundNanos = nowNanos;
+        } else if (!outboundPending) {
+            // Nothing to send is not a stall.
+            lastOutboundNanos = nowNanos;
+        }
+        long timeout = timeoutNanos;
+        Reason reason = null;
+        if (timeout > 0L) {
+            if (nowNanos - lastInboundNanos > timeout) {
+                reason = Reason.TELEMETRY_SILENT;
+            } else if (nowNanos - lastOutboundNanos > timeout) {
+                reason = Reason.WRITE_STALLED;
+            }
+        }
+        boolean changed = (reason == null) != (degradedReason == null);
+        if (changed && reason != null) {
+            degradedCount++;
+        }
+        degradedReason = reason;
+        return changed;
+    }
+
+    public boolean isDegraded() {
+        return degradedReason != null;
+    }
+
+    /**
+     * Why the link is degraded, or {@code null} while it is healthy.
+     */
+    public Reason getDegradedReason() {
+        return degradedReason;
+    }
+
+    public long getDegradedCount() {
+        return degradedCount;
+    }
+}
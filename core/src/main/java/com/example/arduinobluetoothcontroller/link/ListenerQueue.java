@@ -0,0 +1,201 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded hand-off of events to one listener on the listener's own executor. Events are
+ * delivered in order by at most one task at a time; when the queue is full the
+ * {@link OverflowPolicy} decides what gives.
+ */
+public class ListenerQueue<E> {
+
+    public enum OverflowPolicy {
+        /**
+         * Discard the oldest undelivered event to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Keep only the newest undelivered event.
+         */
+        CONFLATE,
+        /**
+         * Make the producer wait for room. Never used on a thread that must keep moving, such
+         * as a reader loop.
+         */
+        BLOCK
+    }
+
+    public interface Handler<E> {
+        void handle(E event);
+    }
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Handler<E> handler;
+    private final Object lock = new Object();
+
+    // Guarded by lock.
+    private final ArrayDeque<E> events = new ArrayDeque<>();
+    private boolean scheduled;
+    private boolean closed;
+
+    private volatile long offeredCount;
+    private volatile long deliveredCount;
+    private volatile long droppedCount;
+    private volatile long blockedCount;
+
+    public ListenerQueue(Executor executor, int capacity, OverflowPolicy policy,
+                         Handler<E> handler) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.handler = handler;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Queues {@code event} for delivery. Returns false if it was not queued because the queue
+     * is closed, the executor rejected it or the producer was interrupted while blocked.
+     */
+    public boolean offer(E event) {
+        synchronized (lock) {
+            if (closed) {
+                return false;
+            }
+            offeredCount++;
+            if (policy == OverflowPolicy.CONFLATE) {
+                droppedCount += events.size();
+                events.clear();
+            } else if (events.size() == capacity) {
+                if (policy == OverflowPolicy.DROP_OLDEST) {
+                    events.poll();
+                    droppedCount++;
+                } else if (!awaitRoom()) {
+                    droppedCount++;
+                    return false;
+                }
+            }
+            events.add(event);
+            if (scheduled) {
+                return true;
+            }
+            scheduled = true;
+        }
+        return schedule();
+    }
+
+    /**
+     * Discards undelivered events and refuses new ones; releases any blocked producer.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            droppedCount += events.size();
+            events.clear();
+            lock.notifyAll();
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return events.size();
+        }
+    }
+
+    public long getOfferedCount() {
+        return offeredCount;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    /**
+     * Events discarded by {@link OverflowPolicy#DROP_OLDEST} or {@link OverflowPolicy#CONFLATE},
+     * or left undelivered by {@link #close()}.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Times a producer had to wait for room under {@link OverflowPolicy#BLOCK}.
+     */
+    public long getBlockedCount() {
+        return blockedCount;
+    }
+
+    // Called with lock held and the queue full; returns false if the event should be dropped.
+    private boolean awaitRoom() {
+        blockedCount++;
+        while (events.size() == capacity && !closed) {
+            try {
+                lock.wait();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return !closed;
+    }
+
+    private boolean schedule() {
+        try {
+            executor.execute(this::drain);
+            return true;
+        } catch (RuntimeException rejected) {
+            synchronized (lock) {
+                scheduled = false;
+                droppedCount += events.size();
+                events.clear();
+                lock.notifyAll();
+            }
+            return false;
+        }
+    }
+
+    // Delivers at most one queue's worth per task so a busy producer cannot monopolise a
+    // shared executor such as the main thread.
+    private void drain() {
+        for (int i = 0; i < capacity; i++) {
+            E next;
+            synchronized (lock) {
+                next = events.poll();
+                if (next == null) {
+                    scheduled = false;
+                    return;
+                }
+                lock.notifyAll();
+            }
+            try {
+                handler.handle(next);
+                deliveredCount++;
+            } catch (RuntimeException exception) {
+                // Report it like an unqueued task would, but keep the queue moving.
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, exception);
+            }
+        }
+        synchronized (lock) {
+            if (events.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+        }
+        schedule();
+    }
+}
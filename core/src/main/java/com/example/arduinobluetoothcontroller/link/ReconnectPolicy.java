@@ -0,0 +1,83 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How {@link VehicleLink} reconnects after losing an established link: capped exponential
+ * backoff with proportional jitter, a bounded number of attempts, and what to do with the
+ * control state that was in effect when the link dropped.
+ */
+public class ReconnectPolicy {
+
+    public enum ResumeMode {
+        /** Re-send the last drive, arm and gripper setpoints. */
+        RESUME,
+        /**
+         * Re-send arm and gripper targets but stop the drive; non-zero drive commands are
+         * ignored until the operator returns the throttle to zero.
+         */
+        ZERO_DRIVE
+    }
+
+    public static final ReconnectPolicy DEFAULT = new ReconnectPolicy(
+            TimeUnit.MILLISECONDS.toNanos(250),
+            TimeUnit.SECONDS.toNanos(4),
+            0.2d,
+            8,
+            ResumeMode.ZERO_DRIVE);
+
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final double jitter;
+    private final int maxAttempts;
+    private final ResumeMode resumeMode;
+
+    /**
+     * {@code jitter} is the fraction by which each delay is randomly stretched or shortened.
+     */
+    public ReconnectPolicy(long initialDelayNanos, long maxDelayNanos, double jitter,
+            int maxAttempts, ResumeMode resumeMode) {
+        if (initialDelayNanos <= 0L || maxDelayNanos < initialDelayNanos
+                || jitter < 0d || jitter >= 1d || maxAttempts <= 0 || resumeMode == null) {
+            throw new IllegalArgumentException("Invalid reconnect policy.");
+        }
+        this.initialDelayNanos = initialDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.jitter = jitter;
+        this.maxAttempts = maxAttempts;
+        this.resumeMode = resumeMode;
+    }
+
+    /**
+     * Delay before the zero-based {@code attempt}.
+     */
+    public long delayNanos(int attempt, Random random) {
+        long delay = initialDelayNanos;
+        for (int i = 0; i < attempt && delay < maxDelayNanos; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxDelayNanos);
+        return (long) (delay * (1d + jitter * (2d * random.nextDouble() - 1d)));
+    }
+
+    public long getInitialDelayNanos() {
+        return initialDelayNanos;
+    }
+
+    public long getMaxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public ResumeMode getResumeMode() {
+        return resumeMode;
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD pacing for the periodic drive and arm streams. The writer reports every flush; once per
+ * evaluation window the controller looks for congestion (a flush that blocked, drive commands
+ * superseded before the writer got to them, lost ACKs or inflated round trips) and halves both
+ * rates if it finds any, otherwise raises them by a fixed step. Rates stay within each
+ * stream's bounds. The last decision is kept as a {@link Reason}.
+ */
+public class SendRateController implements CommandWriter.FlushObserver {
+
+    public enum Reason {
+        STARTUP,
+        PROBING,
+        AT_MAX_RATE,
+        WRITE_STALL,
+        QUEUE_BACKLOG,
+        ACK_LOSS,
+        RTT_INFLATION,
+        FIXED
+    }
+
+    /**
+     * Rate bounds and current rate for one periodic stream.
+     */
+    public static final class Stream {
+
+        private final double minHz;
+        private final double maxHz;
+        private final double initialHz;
+        private volatile double currentHz;
+
+        public Stream(double minHz, double maxHz, double initialHz) {
+            if (minHz <= 0d || maxHz < minHz) {
+                throw new IllegalArgumentException("Invalid rate bounds.");
+            }
+            this.minHz = minHz;
+            this.maxHz = maxHz;
+            this.initialHz = Math.max(minHz, Math.min(maxHz, initialHz));
+            this.currentHz = this.initialHz;
+        }
+
+        public double getMinHz() {
+            return minHz;
+        }
+
+        public double getMaxHz() {
+            return maxHz;
+        }
+
+        public double getRateHz() {
+            return currentHz;
+        }
+
+        public long getIntervalNanos() {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / currentHz);
+        }
+
+        boolean increase(double stepHz) {
+            double updated = Math.min(maxHz, currentHz + stepHz);
+            boolean changed = updated != currentHz;
+            currentHz = updated;
+            return changed;
+        }
+
+        void decrease(double factor) {
+            currentHz = Math.max(minHz, currentHz * factor);
+        }
+
+        void reset() {
+            currentHz = initialHz;
+        }
+    }
+
+    public static final long DEFAULT_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    public static final long DEFAULT_STALL_NANOS = TimeUnit.MILLISECONDS.toNanos(30);
+
+    private static final double ADDITIVE_STEP_HZ = 1d;
+    private static final double DECREASE_FACTOR = 0.5d;
+    private static final double RTT_INFLATION_FACTOR = 2d;
+    private static final long RTT_FLOOR_MICROS = 20_000L;
+    private static final double THROUGHPUT_SMOOTHING = 0.3d;
+
+    private final Clock clock;
+    private final CommandQueue queue;
+    private final LatencyTracker latencyTracker;
+    private final Stream drive;
+    private final Stream arm;
+    private final long windowNanos;
+    private final long stallNanos;
+
+    // Window accumulators, guarded by this.
+    private long windowStartNanos;
+    private long windowBytes;
+    private long windowFlushes;
+    private long windowWriteNanos;
+    private long windowMaxWriteNanos;
+    private long lastSuperseded;
+    private long lastLost;
+    private long minRttMicros = Long.MAX_VALUE;
+
+    private volatile boolean enabled = true;
+    private volatile Reason reason = Reason.STARTUP;
+    private volatile double throughputBytesPerSecond;
+    private volatile long meanWriteNanos;
+
+    public SendRateController(Clock clock, CommandQueue queue, LatencyTracker latencyTracker) {
+        this(clock, queue, latencyTracker,
+                new Stream(4d, 25d, 12.5d),
+                new Stream(5d, 40d, 20d),
+                DEFAULT_WINDOW_NANOS,
+                DEFAULT_STALL_NANOS);
+    }
+
+    public SendRateController(Clock clock, CommandQueue queue, LatencyTracker latencyTracker,
+                              Stream drive, Stream arm, long windowNanos, long stallNanos) {
+        this.clock = clock;
+        this.queue = queue;
+        this.latencyTracker = latencyTracker;
+        this.drive = drive;
+        this.arm = arm;
+        this.windowNanos = windowNanos;
+        this.stallNanos = stallNanos;
+        reset();
+    }
+
+    public Stream getDrive() {
+        return drive;
+    }
+
+    public Stream getArm() {
+        return arm;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public double getThroughputBytesPerSecond() {
+        return throughputBytesPerSecond;
+    }
+
+    public long getMeanWriteNanos() {
+        return meanWriteNanos;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * When disabled both streams return to their initial rates and stay there.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        drive.reset();
+        arm.reset();
+        reason = enabled ? Reason.STARTUP : Reason.FIXED;
+    }
+
+    public synchronized void reset() {
+        drive.reset();
+        arm.reset();
+        reason = enabled ? Reason.STARTUP : Reason.FIXED;
+        windowStartNanos = clock.nanoTime();
+        windowBytes = 0;
+        windowFlushes = 0;
+        windowWriteNanos = 0;
+        windowMaxWriteNanos = 0;
+        lastSuperseded = queue.getSupersededCount(CommandQueue.CHANNEL_DRIVE);
+        lastLost = latencyTracker != null ? latencyTracker.snapshot().getLostCount() : 0;
+        minRttMicros = Long.MAX_VALUE;
+        throughputBytesPerSecond = 0d;
+        meanWriteNanos = 0;
+    }
+
+    @Override
+    public synchronized void onFlush(int frames, int bytes, long writeNanos) {
+        windowBytes += bytes;
+        windowFlushes++;
+        windowWriteNanos += writeNanos;
+        if (writeNanos > windowMaxWriteNanos) {
+            windowMaxWriteNanos = writeNanos;
+        }
+        long now = clock.nanoTime();
+        if (now - windowStartNanos >= windowNanos) {
+            evaluate(now);
+        }
+    }
+
+    private void evaluate(long now) {
+        long elapsed = now - windowStartNanos;
+        double throughput = windowBytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        throughputBytesPerSecond = throughputBytesPerSecond == 0d
+                ? throughput
+                : throughputBytesPerSecond + THROUGHPUT_SMOOTHING * (throughput - throughputBytesPerSecond);
+        meanWriteNanos = windowFlushes == 0 ? 0 : windowWriteNanos / windowFlushes;
+
+        Reason congestion = detectCongestion();
+        if (!enabled) {
+            reason = Reason.FIXED;
+        } else if (congestion != null) {
+            drive.decrease(DECREASE_FACTOR);
+            arm.decrease(DECREASE_FACTOR);
+            reason = congestion;
+        } else {
+            boolean raised = drive.increase(ADDITIVE_STEP_HZ);
+            raised |= arm.increase(ADDITIVE_STEP_HZ);
+            reason = raised ? Reason.PROBING : Reason.AT_MAX_RATE;
+        }
+
+        windowStartNanos = now;
+        windowBytes = 0;
+        windowFlushes = 0;
+        windowWriteNanos = 0;
+        windowMaxWriteNanos = 0;
+    }
+
+    private Reason detectCongestion() {
+        Reason detected = null;
+        if (windowMaxWriteNanos >= stallNanos) {
+            detected = Reason.WRITE_STALL;
+        }
+
+        long superseded = queue.getSupersededCount(CommandQueue.CHANNEL_DRIVE);
+        if (detected == null && superseded > lastSuperseded) {
+            detected = Reason.QUEUE_BACKLOG;
+        }
+        lastSuperseded = superseded;
+
+        if (latencyTracker != null) {
+            LatencySnapshot snapshot = latencyTracker.snapshot();
+            if (detected == null && snapshot.getLostCount() > lastLost) {
+                detected = Reason.ACK_LOSS;
+            }
+            lastLost = snapshot.getLostCount();
+            if (snapshot.getCount() > 0) {
+                long p50 = snapshot.getP50Micros();
+                minRttMicros = Math.min(minRttMicros, p50);
+                if (detected == null
+                        && p50 > RTT_FLOOR_MICROS
+                        && p50 > minRttMicros * RTT_INFLATION_FACTOR) {
+                    detected = Reason.RTT_INFLATION;
+                }
+            }
+        }
+        return detected;
+    }
+}
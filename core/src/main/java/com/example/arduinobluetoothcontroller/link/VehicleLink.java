@@ -0,0 +1,830 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.protocol.CommandProtocol;
+import com.example.arduinobluetoothcontroller.protocol.MotionProfile;
+import com.example.arduinobluetoothcontroller.protocol.PacketParser;
+import com.example.arduinobluetoothcontroller.telemetry.TelemetryHistory;
+import com.example.arduinobluetoothcontroller.time.Clock;
+import com.example.arduinobluetoothcontroller.trace.SessionRecorder;
+import com.example.arduinobluetoothcontroller.transport.Transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transport-agnostic vehicle connection: runs the reader and writer loops on its
+ * {@link LinkExecutors}, and owns the command queue, parsing and telemetry/latency
+ * bookkeeping. Connection callbacks run on the callback executor unless a listener is registered
+ * with its own; data listeners either run on the reader thread or get a bounded
+ * {@link ListenerQueue} on their own executor, and telemetry callbacks run on the reader thread.
+ */
+public class VehicleLink {
+
+    public interface ConnectionListener {
+        void onConnected(Transport transport);
+
+        void onDisconnected();
+
+        void onError(String message);
+
+        /**
+         * The watchdog saw the link go quiet; a stop has been queued and non-zero drive
+         * commands are ignored until {@link #onLinkRecovered()}.
+         */
+        void onLinkDegraded(LinkWatchdog.Reason reason);
+
+        void onLinkRecovered();
+
+        /**
+         * An established link was lost and reconnect {@code attempt} (from 1) will start in
+         * {@code delayMillis}.
+         */
+        void onReconnecting(int attempt, long delayMillis);
+    }
+
+    public interface DataListener {
+        void onPacket(String packet);
+    }
+
+    /**
+     * Decoded telemetry, delivered on the reader thread. {@link CharSequence} arguments are only
+     * valid during the call; copy them with {@code toString()} to keep them.
+     */
+    public interface TelemetryListener {
+        void onStat(int pwm, float tilt, int batteryMillivolts);
+
+        void onLog(CharSequence message);
+
+        void onUnknownPacket(CharSequence packet);
+    }
+
+    public static final int MAX_MOVE_MILLIS = 0xFFFF;
+
+    private static final long WATCHDOG_PERIOD_MILLIS = 50L;
+
+    private final Clock clock;
+    private final Executor callbackExecutor;
+    private final LinkExecutors executors;
+    private final Executor connectionExecutor;
+    private final CopyOnWriteArrayList<ConnectionRegistration> connectionListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<DataRegistration> dataListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<TelemetryListener> telemetryListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean connected = new AtomicBoolean(false);
+    private final CommandQueue commandQueue;
+    private final LatencyTracker latencyTracker;
+    private final TelemetryHistory telemetryHistory = new TelemetryHistory();
+    private final CommandWriter commandWriter;
+    private final SendRateController sendRateController;
+    private final CreditWindow creditWindow;
+    private final LinkWatchdog watchdog = new LinkWatchdog(0L);
+    private final ControlState controlState = new ControlState();
+    private final Random reconnectRandom = new Random();
+    // Owned by the reader thread.
+    private final PacketParser packetParser = new PacketParser(new PacketParser.Listener() {
+        @Override
+        public void onFrame(CharSequence frame) {
+            watchdog.onInbound(clock.nanoTime());
+            SessionRecorder recorder = sessionRecorder;
+            if (recorder != null) {
+                recorder.record(SessionRecorder.DIRECTION_INBOUND, frame);
+            }
+            if (!dataListeners.isEmpty()) {
+                notifyPacket(frame.toString());
+            }
+        }
+
+        @Override
+        public void onStat(int pwm, float tilt, int batteryMillivolts) {
+            telemetryHistory.record(clock.nanoTime(), pwm, tilt, batteryMillivolts);
+            for (TelemetryListener listener : telemetryListeners) {
+                listener.onStat(pwm, tilt, batteryMillivolts);
+            }
+        }
+
+        @Override
+        public void onLog(CharSequence message) {
+            for (TelemetryListener listener : telemetryListeners) {
+                listener.onLog(message);
+            }
+        }
+
+        @Override
+        public void onAck(int sequence) {
+            latencyTracker.onAck(sequence, clock.nanoTime());
+        }
+
+        @Override
+        public void onCredit(int received, int free) {
+            creditWindow.onGrant(received, free);
+        }
+
+        @Override
+        public void onOther(CharSequence frame) {
+            for (TelemetryListener listener : telemetryListeners) {
+                listener.onUnknownPacket(frame);
+            }
+        }
+    });
+
+    private volatile SessionRecorder sessionRecorder;
+    private volatile Transport transport;
+    private volatile InputStream inputStream;
+    private volatile OutputStream outputStream;
+    private Future<?> readerFuture;
+    private volatile Thread readerThread;
+    private Future<?> writerFuture;
+    private Future<?> watchdogFuture;
+    private volatile Future<?> reconnectFuture;
+    private volatile ReconnectPolicy reconnectPolicy;
+    private volatile Transport reconnectTarget;
+    private volatile boolean driveArmed = true;
+    private volatile boolean armMovesEnabled;
+    private volatile long lossNanos;
+    private volatile long lastRecoveryNanos = -1L;
+    private volatile long reconnectCount;
+
+    public VehicleLink(Executor callbackExecutor) {
+        this(Clock.SYSTEM, callbackExecutor);
+    }
+
+    public VehicleLink(Clock clock, Executor callbackExecutor) {
+        this(clock, callbackExecutor, new LinkExecutors(1));
+    }
+
+    /**
+     * Runs connection, reader and writer work on {@code executors}, which may be shared with
+     * other links.
+     */
+    public VehicleLink(Clock clock, Executor callbackExecutor, LinkExecutors executors) {
+        this.clock = clock;
+        this.callbackExecutor = callbackExecutor;
+        this.executors = executors;
+        connectionExecutor = executors.newSerialExecutor();
+        commandQueue = new CommandQueue(clock);
+        latencyTracker = new LatencyTracker(clock, LatencyTracker.DEFAULT_WINDOW_NANOS);
+        commandWriter = new CommandWriter(
+                commandQueue, exception -> notifyError("Failed to send command."), clock);
+        sendRateController = new SendRateController(clock, commandQueue, latencyTracker);
+        commandWriter.setFlushObserver(sendRateController);
+        creditWindow = new CreditWindow(clock);
+        commandWriter.setCreditWindow(creditWindow);
+    }
+
+    public LinkExecutors getExecutors() {
+        return executors;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public boolean isConnected() {
+        Transport current = transport;
+        return connected.get() && current != null && current.isOpen();
+    }
+
+    /**
+     * Delivers connection events on the callback executor, without dropping any.
+     */
+    public void addConnectionListener(ConnectionListener listener) {
+        addConnectionListener(listener, callbackExecutor);
+    }
+
+    public void addConnectionListener(ConnectionListener listener, Executor executor) {
+        addConnectionListener(listener, executor, ListenerQueue.DEFAULT_CAPACITY,
+                ListenerQueue.OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Events are queued from the link's connection executor, so a full
+     * {@link ListenerQueue.OverflowPolicy#BLOCK} queue holds up this link's connect and
+     * reconnect work but never its reader, writer or the shared scheduler.
+     */
+    public void addConnectionListener(ConnectionListener listener, Executor executor, int capacity,
+                                      ListenerQueue.OverflowPolicy policy) {
+        if (listener != null) {
+            connectionListeners.add(new ConnectionRegistration(listener,
+                    new ListenerQueue<ConnectionEvent>(executor, capacity, policy,
+                            event -> event.deliver(listener))));
+        }
+    }
+
+    public void removeConnectionListener(ConnectionListener listener) {
+        for (ConnectionRegistration registration : connectionListeners) {
+            if (registration.listener == listener) {
+                connectionListeners.remove(registration);
+                registration.queue.close();
+            }
+        }
+    }
+
+    /**
+     * Delivers packets on the reader thread; the listener must return quickly.
+     */
+    public void addDataListener(DataListener listener) {
+        if (listener != null) {
+            dataListeners.add(new DataRegistration(listener, null));
+        }
+    }
+
+    public void addDataListener(DataListener listener, Executor executor) {
+        addDataListener(listener, executor, ListenerQueue.DEFAULT_CAPACITY,
+                ListenerQueue.OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Delivers packets on {@code executor} through a queue of {@code capacity}. The reader thread
+     * never waits for the listener, so {@link ListenerQueue.OverflowPolicy#BLOCK} is refused.
+     */
+    public void addDataListener(DataListener listener, Executor executor, int capacity,
+                                ListenerQueue.OverflowPolicy policy) {
+        if (policy == ListenerQueue.OverflowPolicy.BLOCK) {
+            throw new IllegalArgumentException("Data listeners cannot block the reader thread.");
+        }
+        if (listener != null) {
+            dataListeners.add(new DataRegistration(listener,
+                    new ListenerQueue<>(executor, capacity, policy, listener::onPacket)));
+        }
+    }
+
+    public void removeDataListener(DataListener listener) {
+        for (DataRegistration registration : dataListeners) {
+            if (registration.listener == listener) {
+                dataListeners.remove(registration);
+                if (registration.queue != null) {
+                    registration.queue.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Events dropped by listener queues, across connection and data listeners.
+     */
+    public long getListenerDroppedCount() {
+        long dropped = 0L;
+        for (ConnectionRegistration registration : connectionListeners) {
+            dropped += registration.queue.getDroppedCount();
+        }
+        for (DataRegistration registration : dataListeners) {
+            if (registration.queue != null) {
+                dropped += registration.queue.getDroppedCount();
+            }
+        }
+        return dropped;
+    }
+
+    public void addTelemetryListener(TelemetryListener listener) {
+        if (listener != null) {
+            telemetryListeners.add(listener);
+        }
+    }
+
+    public void removeTelemetryListener(TelemetryListener listener) {
+        telemetryListeners.remove(listener);
+    }
+
+    public void connect(Transport target) {
+        if (target == null) {
+            notifyError("Transport not available.");
+            return;
+        }
+
+        connectionExecutor.execute(() -> {
+            cancelReconnect();
+            disconnectInternal(false);
+            controlState.clear();
+            lastRecoveryNanos = -1L;
+            try {
+                openConnection(target, false);
+            } catch (IOException ioException) {
+                notifyError(ioException.getMessage());
+                disconnectInternal(true);
+            }
+        });
+    }
+
+    public void disconnect() {
+        connectionExecutor.execute(() -> {
+            cancelReconnect();
+            disconnectInternal(true);
+        });
+    }
+
+    /**
+     * Reconnects to the same transport when an established link drops, or never when
+     * {@code null}. An explicit {@link #connect} or {@link #disconnect} cancels a pending
+     * reconnect.
+     */
+    public void setReconnectPolicy(ReconnectPolicy policy) {
+        reconnectPolicy = policy;
+        if (policy == null) {
+            cancelReconnect();
+        }
+    }
+
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    public boolean isReconnecting() {
+        return reconnectTarget != null;
+    }
+
+    public long getReconnectCount() {
+        return reconnectCount;
+    }
+
+    /**
+     * Time from losing the link to having it back for the current connection, or -1 if it was
+     * opened explicitly.
+     */
+    public long getLastRecoveryNanos() {
+        return lastRecoveryNanos;
+    }
+
+    public void setCommandProtocol(CommandProtocol protocol) {
+        if (protocol != null) {
+            commandWriter.setProtocol(protocol);
+        }
+    }
+
+    public CommandProtocol getCommandProtocol() {
+        return commandWriter.getProtocol();
+    }
+
+    public CommandQueue getCommandQueue() {
+        return commandQueue;
+    }
+
+    public CommandWriter getCommandWriter() {
+        return commandWriter;
+    }
+
+    public void setWriteBatchWindowMillis(long windowMillis) {
+        commandWriter.setBatchWindowNanos(TimeUnit.MILLISECONDS.toNanos(windowMillis));
+    }
+
+    /**
+     * Sequence-numbers outgoing commands so firmware {@code <ACK:seq>} replies can be timed.
+     * Only enable this for firmware that understands the extra field.
+     */
+    public void setLatencyTrackingEnabled(boolean enabled) {
+        if (enabled && commandWriter.getLatencyTracker() == null) {
+            latencyTracker.reset();
+        }
+        commandWriter.setLatencyTracker(enabled ? latencyTracker : null);
+    }
+
+    public boolean isLatencyTrackingEnabled() {
+        return commandWriter.getLatencyTracker() != null;
+    }
+
+    public void setLatencyWindowMillis(long windowMillis) {
+        latencyTracker.setWindowNanos(TimeUnit.MILLISECONDS.toNanos(windowMillis));
+    }
+
+    public LatencySnapshot getLatencySnapshot() {
+        return latencyTracker.snapshot();
+    }
+
+    /**
+     * Adaptive pacing for periodic drive and arm commands; callers that emit on a timer should
+     * follow its stream intervals.
+     */
+    public SendRateController getSendRateController() {
+        return sendRateController;
+    }
+
+    /**
+     * Never puts more bytes on the wire than the firmware has granted in its credit frames.
+     * Has no effect until the firmware sends its first grant.
+     */
+    public void setFlowControlEnabled(boolean enabled) {
+        creditWindow.setEnabled(enabled);
+    }
+
+    public boolean isFlowControlEnabled() {
+        return creditWindow.isEnabled();
+    }
+
+    public void setFlowControlPolicy(CreditWindow.OverflowPolicy policy) {
+        creditWindow.setOverflowPolicy(policy);
+    }
+
+    public CreditWindow getCreditWindow() {
+        return creditWindow;
+    }
+
+    /**
+     * Declares the link degraded when nothing has been received, or queued commands have not
+     * been written, for {@code timeoutMillis}; zero disables the check. Keep it well above the
+     * firmware's STAT period.
+     */
+    public void setWatchdogTimeoutMillis(long timeoutMillis) {
+        watchdog.setTimeoutNanos(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    public LinkWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    public TelemetryHistory getTelemetryHistory() {
+        return telemetryHistory;
+    }
+
+    /**
+     * Records every connection as a session of outbound frames and inbound packets, or stops
+     * recording when {@code null}. Takes effect from the next connection.
+     */
+    public void setSessionRecorder(SessionRecorder recorder) {
+        sessionRecorder = recorder;
+        commandWriter.setRecorder(recorder);
+    }
+
+    public SessionRecorder getSessionRecorder() {
+        return sessionRecorder;
+    }
+
+    public void sendDrive(int speed, int angle) {
+        if (!isConnected()) {
+            return;
+        }
+        if (speed == 0) {
+            driveArmed = true;
+        } else if (!driveArmed || watchdog.isDegraded()) {
+            return;
+        }
+        controlState.recordDrive(speed, angle);
+        commandQueue.offerDrive(speed, angle);
+    }
+
+    public void sendStop() {
+        if (isConnected()) {
+            driveArmed = true;
+            controlState.recordDrive(0, CommandQueue.STOP_ANGLE);
+            commandQueue.offerStop();
+        }
+    }
+
+    public void sendArm(int joint, int angle) {
+        if (isConnected()) {
+            controlState.recordArm(joint, angle);
+            commandQueue.offerArm(joint, angle);
+        }
+    }
+
+    /**
+     * Lets {@link #sendArmMove} use MOV frames. Only enable this for firmware that interpolates
+     * them; until then arm commands stay plain {@code <ARM>} frames.
+     */
+    public void setArmMovesEnabled(boolean enabled) {
+        armMovesEnabled = enabled;
+    }
+
+    public boolean isArmMovesEnabled() {
+        return armMovesEnabled;
+    }
+
+    /**
+     * Sends one planned move for the firmware to interpolate, instead of a stream of angles.
+     * {@code durationMillis} is clamped to what the frame can carry. A reconnect replays the
+     * move. Without {@link #setArmMovesEnabled arm moves} this sends the target angle as a plain
+     * {@link #sendArm} instead.
+     */
+    public void sendArmMove(int joint, int angle, int durationMillis, MotionProfile profile) {
+        if (!armMovesEnabled) {
+            sendArm(joint, angle);
+            return;
+        }
+        if (isConnected()) {
+            int clampedMillis = Math.max(0, Math.min(MAX_MOVE_MILLIS, durationMillis));
+            controlState.recordArmMove(joint, angle, clampedMillis, profile.getCode());
+            commandQueue.offerArmMove(joint, angle, clampedMillis, profile.getCode());
+        }
+    }
+
+    public void sendGripper(boolean grab) {
+        if (isConnected()) {
+            controlState.recordGripper(grab);
+            commandQueue.offerGripper(grab);
+        }
+    }
+
+    // Runs on the connection executor.
+    private void openConnection(Transport target, boolean reconnecting) throws IOException {
+        transport = target;
+        target.open();
+        inputStream = target.getInputStream();
+        outputStream = target.getOutputStream();
+        openRecorder();
+        sendRateController.reset();
+        creditWindow.reset();
+        connected.set(true);
+        if (reconnecting) {
+            lastRecoveryNanos = clock.nanoTime() - lossNanos;
+            reconnectCount++;
+            resumeControl();
+        } else {
+            driveArmed = true;
+        }
+        notifyConnected(target);
+        startWriter();
+        startReader();
+        startWatchdog();
+    }
+
+    private void resumeControl() {
+        ReconnectPolicy policy = reconnectPolicy;
+        boolean resume = policy != null
+                && policy.getResumeMode() == ReconnectPolicy.ResumeMode.RESUME;
+        controlState.replay(commandQueue, resume);
+        if (!resume) {
+            driveArmed = false;
+            commandQueue.offerStop();
+        }
+    }
+
+    // Runs on the reader thread once the link has dropped on its own.
+    private void onLinkLost() {
+        Transport target = transport;
+        disconnectInternal(true);
+        if (reconnectPolicy != null && target != null) {
+            lossNanos = clock.nanoTime();
+            reconnectTarget = target;
+            scheduleReconnect(target, 0);
+        }
+    }
+
+    private void scheduleReconnect(Transport target, int attempt) {
+        ReconnectPolicy policy = reconnectPolicy;
+        if (policy == null || reconnectTarget != target) {
+            return;
+        }
+        if (attempt >= policy.getMaxAttempts()) {
+            reconnectTarget = null;
+            notifyError("Could not reconnect to " + target.getName() + ".");
+            return;
+        }
+        long delayNanos = policy.delayNanos(attempt, reconnectRandom);
+        notifyReconnecting(attempt + 1, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        reconnectFuture = executors.getScheduler().schedule(
+                () -> connectionExecutor.execute(() -> attemptReconnect(target, attempt)),
+                delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Runs on the connection executor.
+    private void attemptReconnect(Transport target, int attempt) {
+        if (reconnectTarget != target) {
+            return;
+        }
+        try {
+            disconnectInternal(false);
+            openConnection(target, true);
+            reconnectTarget = null;
+        } catch (IOException ioException) {
+            disconnectInternal(false);
+            scheduleReconnect(target, attempt + 1);
+        }
+    }
+
+    private void cancelReconnect() {
+        reconnectTarget = null;
+        Future<?> pending = reconnectFuture;
+        reconnectFuture = null;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+
+    public void sendCommand(String command) {
+        if (!isConnected() || command == null || command.isEmpty()) {
+            return;
+        }
+        commandQueue.offerRaw(command);
+    }
+
+    private void startWriter() {
+        stopWriter();
+        OutputStream stream = outputStream;
+        writerFuture = executors.getIoPool().submit(() -> commandWriter.run(stream));
+    }
+
+    private void stopWriter() {
+        if (writerFuture != null) {
+            writerFuture.cancel(true);
+            writerFuture = null;
+        }
+    }
+
+    private void startReader() {
+        stopReader();
+        InputStream stream = inputStream;
+        readerFuture = executors.getIoPool().submit(() -> {
+            readerThread = Thread.currentThread();
+            packetParser.reset();
+            try {
+                while (!Thread.currentThread().isInterrupted()
+                        && isConnected()
+                        && stream != null) {
+                    if (packetParser.readFrom(stream) == -1) {
+                        break;
+                    }
+                }
+            } catch (IOException ignored) {
+                // Connection lost.
+            } finally {
+                // A reader outliving its connection must not tear down the next one, and being
+                // interrupted means we were stopped on purpose rather than losing the link.
+                if (stream == inputStream) {
+                    if (connected.get() && !Thread.currentThread().isInterrupted()) {
+                        onLinkLost();
+                    } else {
+                        disconnectInternal(true);
+                    }
+                }
+                if (readerThread == Thread.currentThread()) {
+                    readerThread = null;
+                }
+            }
+        });
+    }
+
+    private void stopReader() {
+        if (readerFuture != null) {
+            // The reader tearing down its own link must not interrupt itself: that would cut
+            // short the session recorder's final drain.
+            if (readerThread != Thread.currentThread()) {
+                readerFuture.cancel(true);
+            }
+            readerFuture = null;
+        }
+    }
+
+    private void startWatchdog() {
+        stopWatchdog();
+        watchdog.reset(clock.nanoTime(), commandWriter.getFlushCount());
+        watchdogFuture = executors.getScheduler().scheduleWithFixedDelay(
+                this::checkWatchdog, WATCHDOG_PERIOD_MILLIS, WATCHDOG_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void stopWatchdog() {
+        if (watchdogFuture != null) {
+            watchdogFuture.cancel(false);
+            watchdogFuture = null;
+        }
+    }
+
+    private void checkWatchdog() {
+        if (!isConnected() || !watchdog.check(clock.nanoTime(),
+                commandWriter.getFlushCount(), commandQueue.size() > 0)) {
+            return;
+        }
+        LinkWatchdog.Reason reason = watchdog.getDegradedReason();
+        if (reason != null) {
+            // As after a reconnect, the throttle must return to zero before driving again.
+            driveArmed = false;
+            commandQueue.offerStop();
+            notifyLinkDegraded(reason);
+        } else {
+            notifyLinkRecovered();
+        }
+    }
+
+    private void disconnectInternal(boolean notify) {
+        stopWatchdog();
+        stopReader();
+        stopWriter();
+        commandQueue.clear();
+        closeQuietly(inputStream);
+        closeQuietly(outputStream);
+        Transport current = transport;
+        if (current != null) {
+            current.close();
+        }
+        inputStream = null;
+        outputStream = null;
+        transport = null;
+        SessionRecorder recorder = sessionRecorder;
+        if (recorder != null) {
+            recorder.close();
+        }
+
+        if (connected.getAndSet(false) && notify) {
+            notifyDisconnected();
+        }
+    }
+
+    private void openRecorder() {
+        SessionRecorder recorder = sessionRecorder;
+        if (recorder != null) {
+            try {
+                recorder.open();
+            } catch (IOException ioException) {
+                notifyError("Session recording unavailable.");
+            }
+        }
+    }
+
+    private void closeQuietly(InputStream stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void closeQuietly(OutputStream stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void notifyConnected(Transport target) {
+        postConnectionEvent(listener -> listener.onConnected(target));
+    }
+
+    private void notifyDisconnected() {
+        postConnectionEvent(ConnectionListener::onDisconnected);
+    }
+
+    private void notifyLinkDegraded(LinkWatchdog.Reason reason) {
+        postConnectionEvent(listener -> listener.onLinkDegraded(reason));
+    }
+
+    private void notifyLinkRecovered() {
+        postConnectionEvent(ConnectionListener::onLinkRecovered);
+    }
+
+    private void notifyReconnecting(int attempt, long delayMillis) {
+        postConnectionEvent(listener -> listener.onReconnecting(attempt, delayMillis));
+    }
+
+    protected void notifyError(String message) {
+        postConnectionEvent(listener -> listener.onError(message));
+    }
+
+    // Always hops through the connection executor so a blocking listener queue can only hold up
+    // connection work, and events keep the order they were raised in.
+    private void postConnectionEvent(ConnectionEvent event) {
+        try {
+            connectionExecutor.execute(() -> {
+                for (ConnectionRegistration registration : connectionListeners) {
+                    registration.queue.offer(event);
+                }
+            });
+        } catch (RejectedExecutionException shutDown) {
+            // The shared executors are gone; nothing is left to report to.
+        }
+    }
+
+    private void notifyPacket(String packet) {
+        for (DataRegistration registration : dataListeners) {
+            if (registration.queue != null) {
+                registration.queue.offer(packet);
+            } else {
+                registration.listener.onPacket(packet);
+            }
+        }
+    }
+
+    private interface ConnectionEvent {
+        void deliver(ConnectionListener listener);
+    }
+
+    private static final class ConnectionRegistration {
+
+        final ConnectionListener listener;
+        final ListenerQueue<ConnectionEvent> queue;
+
+        ConnectionRegistration(ConnectionListener listener, ListenerQueue<ConnectionEvent> queue) {
+            this.listener = listener;
+            this.queue = queue;
+        }
+    }
+
+    private static final class DataRegistration {
+
+        final DataListener listener;
+        // Null delivers on the reader thread.
+        final ListenerQueue<String> queue;
+
+        DataRegistration(DataListener listener, ListenerQueue<String> queue) {
+            this.listener = listener;
+            this.queue = queue;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds up to {@code maxLinks} concurrent links keyed by device address, all running on one
+ * shared {@link LinkExecutors}. Links can be put in named groups so a command (typically a
+ * stop) reaches every vehicle in a group, or every vehicle at once.
+ */
+public class VehicleLinkManager<L extends VehicleLink> {
+
+    public interface LinkFactory<L extends VehicleLink> {
+        L create(String address, LinkExecutors executors);
+    }
+
+    public interface LinkAction<L extends VehicleLink> {
+        void apply(L link);
+    }
+
+    private final LinkExecutors executors;
+    private final LinkFactory<L> factory;
+    private final Map<String, L> links = new LinkedHashMap<>();
+    private final Map<String, Set<String>> groups = new LinkedHashMap<>();
+
+    public VehicleLinkManager(int maxLinks, LinkFactory<L> factory) {
+        this(new LinkExecutors(maxLinks), factory);
+    }
+
+    public VehicleLinkManager(LinkExecutors executors, LinkFactory<L> factory) {
+        this.executors = executors;
+        this.factory = factory;
+    }
+
+    public LinkExecutors getExecutors() {
+        return executors;
+    }
+
+    /**
+     * Returns the link for {@code address}, creating it if needed.
+     *
+     * @throws IllegalStateException if the manager is already at its link limit
+     */
+    public synchronized L getOrCreate(String address) {
+        L link = links.get(address);
+        if (link == null) {
+            checkCapacity();
+            link = factory.create(address, executors);
+            links.put(address, link);
+        }
+        return link;
+    }
+
+    /**
+     * Adopts a link created elsewhere on this manager's executors under {@code address}.
+     */
+    public synchronized void register(String address, L link) {
+        if (link.getExecutors() != executors) {
+            throw new IllegalArgumentException("Link runs on different executors.");
+        }
+        if (!links.containsKey(address)) {
+            checkCapacity();
+        }
+        links.put(address, link);
+    }
+
+    public synchronized L get(String address) {
+        return links.get(address);
+    }
+
+    public synchronized List<String> getAddresses() {
+        return new ArrayList<>(links.keySet());
+    }
+
+    public synchronized int size() {
+        return links.size();
+    }
+
+    /**
+     * Disconnects and forgets the link for {@code address}.
+     */
+    public void remove(String address) {
+        L link;
+        synchronized (this) {
+            link = links.remove(address);
+            for (Set<String> members : groups.values()) {
+                members.remove(address);
+            }
+        }
+        if (link != null) {
+            link.disconnect();
+        }
+    }
+
+    public synchronized void addToGroup(String group, String address) {
+        groups.computeIfAbsent(group, key -> new LinkedHashSet<>()).add(address);
+    }
+
+    public synchronized void removeFromGroup(String group, String address) {
+        Set<String> members = groups.get(group);
+        if (members != null) {
+            members.remove(address);
+        }
+    }
+
+    public synchronized Set<String> getGroup(String group) {
+        Set<String> members = groups.get(group);
+        return members != null
+                ? Collections.unmodifiableSet(new LinkedHashSet<>(members))
+                : Collections.emptySet();
+    }
+
+    /**
+     * Applies {@code action} to every link, outside the manager's lock.
+     */
+    public void forEach(LinkAction<L> action) {
+        for (L link : snapshot(null)) {
+            action.apply(link);
+        }
+    }
+
+    public void forGroup(String group, LinkAction<L> action) {
+        for (L link : snapshot(group)) {
+            action.apply(link);
+        }
+    }
+
+    public void stopAll() {
+        forEach(VehicleLink::sendStop);
+    }
+
+    public void stopGroup(String group) {
+        forGroup(group, VehicleLink::sendStop);
+    }
+
+    public void disconnectAll() {
+        forEach(VehicleLink::disconnect);
+    }
+
+    public synchronized LinkMetrics getMetrics(String address) {
+        L link = links.get(address);
+        return link != null ? LinkMetrics.capture(address, link) : null;
+    }
+
+    public synchronized List<LinkMetrics> getMetrics() {
+        List<LinkMetrics> metrics = new ArrayList<>(links.size());
+        for (Map.Entry<String, L> entry : links.entrySet()) {
+            metrics.add(LinkMetrics.capture(entry.getKey(), entry.getValue()));
+        }
+        return metrics;
+    }
+
+    private void checkCapacity() {
+        if (links.size() >= executors.getMaxLinks()) {
+            throw new IllegalStateException("Already holding " + links.size() + " links.");
+        }
+    }
+
+    private synchronized List<L> snapshot(String group) {
+        if (group == null) {
+            return new ArrayList<>(links.values());
+        }
+        List<L> members = new ArrayList<>();
+        Set<String> addresses = groups.get(group);
+        if (addresses != null) {
+            for (String address : addresses) {
+                L link = links.get(address);
+                if (link != null) {
+                    members.add(link);
+                }
+            }
+        }
+        return members;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+/**
+ * Compact framing: {@code SYNC, type, payload..., CRC-8}. The CRC covers everything after the
+ * sync byte, and each type has a fixed payload length so the firmware needs no length byte.
+ * Sequenced frames set {@link #FLAG_SEQUENCED} in the type and insert the sequence byte before
+ * the payload.
+ */
+public class BinaryCommandEncoder implements CommandEncoder {
+
+    public static final byte SYNC = (byte) 0xA5;
+    public static final byte TYPE_DRIVE = 0x01;
+    public static final byte TYPE_ARM = 0x02;
+    public static final byte TYPE_GRIPPER = 0x03;
+    public static final byte TYPE_ARM_MOVE = 0x04;
+    public static final byte FLAG_SEQUENCED = (byte) 0x80;
+
+    @Override
+    public int encodeDrive(byte[] target, int offset, int sequence, int speed, int angle) {
+        int position = header(target, offset, TYPE_DRIVE, sequence);
+        target[position++] = (byte) (speed >> 8);
+        target[position++] = (byte) speed;
+        target[position++] = (byte) angle;
+        return seal(target, offset, position);
+    }
+
+    @Override
+    public int encodeArm(byte[] target, int offset, int sequence, int joint, int angle) {
+        int position = header(target, offset, TYPE_ARM, sequence);
+        target[position++] = (byte) joint;
+        target[position++] = (byte) angle;
+        return seal(target, offset, position);
+    }
+
+    /**
+     * Payload: joint, angle, duration in ms (big-endian 16 bits), profile code.
+     */
+    @Override
+    public int encodeArmMove(byte[] target, int offset, int sequence, int joint, int angle,
+                             int durationMillis, int profile) {
+        int position = header(target, offset, TYPE_ARM_MOVE, sequence);
+        target[position++] = (byte) joint;
+        target[position++] = (byte) angle;
+        target[position++] = (byte) (durationMillis >> 8);
+        target[position++] = (byte) durationMillis;
+        target[position++] = (byte) profile;
+        return seal(target, offset, position);
+    }
+
+    @Override
+    public int encodeGripper(byte[] target, int offset, int sequence, boolean grab) {
+        int position = header(target, offset, TYPE_GRIPPER, sequence);
+        target[position++] = (byte) (grab ? 1 : 0);
+        return seal(target, offset, position);
+    }
+
+    private static int header(byte[] target, int offset, byte type, int sequence) {
+        target[offset] = SYNC;
+        if (sequence == NO_SEQUENCE) {
+            target[offset + 1] = type;
+            return offset + 2;
+        }
+        target[offset + 1] = (byte) (type | FLAG_SEQUENCED);
+        target[offset + 2] = (byte) sequence;
+        return offset + 3;
+    }
+
+    private static int seal(byte[] target, int offset, int position) {
+        target[position] = Crc8.compute(target, offset + 1, position - offset - 1);
+        return position + 1 - offset;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+/**
+ * Writes a complete frame into {@code target} starting at {@code offset} and returns the number
+ * of bytes written. Implementations are stateless and never allocate. A {@code sequence} of
+ * 0-255 asks the firmware to acknowledge the frame with {@code <ACK:sequence>};
+ * {@link #NO_SEQUENCE} produces the plain frame.
+ */
+public interface CommandEncoder {
+
+    int MAX_FRAME_LENGTH = 24;
+    int NO_SEQUENCE = -1;
+
+    int encodeDrive(byte[] target, int offset, int sequence, int speed, int angle);
+
+    int encodeArm(byte[] target, int offset, int sequence, int joint, int angle);
+
+    /**
+     * A planned move: the firmware interpolates {@code joint} from where it is to {@code angle}
+     * over {@code durationMillis} (0-65535) along the {@link MotionProfile} with code
+     * {@code profile}.
+     */
+    int encodeArmMove(byte[] target, int offset, int sequence, int joint, int angle,
+                      int durationMillis, int profile);
+
+    int encodeGripper(byte[] target, int offset, int sequence, boolean grab);
+}
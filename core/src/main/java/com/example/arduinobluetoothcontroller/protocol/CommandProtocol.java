@@ -0,0 +1,16 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+public enum CommandProtocol {
+    TEXT(new TextCommandEncoder()),
+    BINARY(new BinaryCommandEncoder());
+
+    private final CommandEncoder encoder;
+
+    CommandProtocol(CommandEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    public CommandEncoder getEncoder() {
+        return encoder;
+    }
+}
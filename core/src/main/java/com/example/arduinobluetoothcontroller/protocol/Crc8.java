@@ -0,0 +1,30 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+/**
+ * CRC-8/SMBUS (polynomial 0x07, initial value 0), table driven.
+ */
+public final class Crc8 {
+
+    private static final byte[] TABLE = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80) != 0 ? (crc << 1) ^ 0x07 : crc << 1;
+            }
+            TABLE[i] = (byte) crc;
+        }
+    }
+
+    private Crc8() {
+    }
+
+    public static byte compute(byte[] data, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = TABLE[(crc ^ data[i]) & 0xFF];
+        }
+        return (byte) crc;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+/**
+ * Velocity profile of a planned arm move, as interpolated by the firmware. The wire code is sent
+ * with the move; {@link #position} is the same curve on the phone side, so the app can tell
+ * where a joint is without asking.
+ */
+public enum MotionProfile {
+    /**
+     * Constant velocity.
+     */
+    LINEAR(0),
+    /**
+     * Constant acceleration over the first and last quarter, cruising in between.
+     */
+    TRAPEZOIDAL(1),
+    /**
+     * Minimum-jerk quintic: velocity and acceleration both start and end at zero.
+     */
+    S_CURVE(2);
+
+    private static final float RAMP = 0.25f;
+
+    private final int code;
+
+    MotionProfile(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Fraction of the distance covered at {@code fraction} (0-1) of the duration.
+     */
+    public float position(float fraction) {
+        float t = Math.max(0f, Math.min(1f, fraction));
+        switch (this) {
+            case TRAPEZOIDAL:
+                float cruise = 1f / (1f - RAMP);
+                if (t < RAMP) {
+                    return cruise * t * t / (2f * RAMP);
+                }
+                if (t > 1f - RAMP) {
+                    float remaining = 1f - t;
+                    return 1f - cruise * remaining * remaining / (2f * RAMP);
+                }
+                return cruise * (RAMP / 2f + t - RAMP);
+            case S_CURVE:
+                return t * t * t * (10f + t * (-15f + 6f * t));
+            default:
+                return t;
+        }
+    }
+
+    /**
+     * Peak velocity relative to the average velocity of a move; dividing the distance by a
+     * speed limit and multiplying by this gives the shortest duration that respects the limit.
+     */
+    public float getPeakVelocityRatio() {
+        switch (this) {
+            case TRAPEZOIDAL:
+                return 1f / (1f - RAMP);
+            case S_CURVE:
+                return 1.875f;
+            default:
+                return 1f;
+        }
+    }
+
+    public static MotionProfile fromCode(int code) {
+        for (MotionProfile profile : values()) {
+            if (profile.code == code) {
+                return profile;
+            }
+        }
+        return LINEAR;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Incremental parser for newline-terminated telemetry frames. Receive credits arrive either as
+ * {@code <CRD:received:free>} or as two trailing fields on a status frame,
+ * {@code <STAT:pwm:tilt:battery:received:free>}.
+ *
+ * <p> Bytes are read straight into a
+ * power-of-two ring buffer and frames are decoded in place; the {@link CharSequence} handed to
+ * the listener is a view into the ring and is only valid for the duration of the callback.
+ * Not thread-safe: a parser belongs to a single reader thread.
+ */
+public class PacketParser {
+
+    public interface Listener {
+        void onFrame(CharSequence frame);
+
+        void onStat(int pwm, float tilt, int batteryMillivolts);
+
+        void onLog(CharSequence message);
+
+        void onAck(int sequence);
+
+        /**
+         * Receive credits: the firmware's byte counter modulo 2^16 and its free RX space.
+         */
+        void onCredit(int received, int free);
+
+        void onOther(CharSequence frame);
+    }
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int REBASE_THRESHOLD = 1 << 30;
+    private static final byte[] STAT_PREFIX = {'<', 'S', 'T', 'A', 'T', ':'};
+    private static final byte[] LOG_PREFIX = {'<', 'L', 'O', 'G', ':'};
+    private static final byte[] ACK_PREFIX = {'<', 'A', 'C', 'K', ':'};
+    private static final byte[] CREDIT_PREFIX = {'<', 'C', 'R', 'D', ':'};
+
+    private final byte[] ring;
+    private final int mask;
+    private final Slice slice = new Slice();
+    private final Listener listener;
+
+    private int frameStart;
+    private int scanPosition;
+    private int writePosition;
+    private boolean discarding;
+    private boolean malformed;
+    private long overflowCount;
+
+    public PacketParser(Listener listener) {
+        this(listener, DEFAULT_CAPACITY);
+    }
+
+    public PacketParser(Listener listener, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        this.listener = listener;
+        this.ring = new byte[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void reset() {
+        frameStart = 0;
+        scanPosition = 0;
+        writePosition = 0;
+        discarding = false;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * Performs one blocking read from {@code stream} into the ring and dispatches every frame it
+     * completes. Returns the {@link InputStream#read} result.
+     */
+    public int readFrom(InputStream stream) throws IOException {
+        ensureSpace();
+        int index = writePosition & mask;
+        int free = ring.length - (writePosition - frameStart);
+        int size = stream.read(ring, index, Math.min(free, ring.length - index));
+        if (size > 0) {
+            writePosition += size;
+            scan();
+        }
+        return size;
+    }
+
+    public void feed(byte[] data, int offset, int length) {
+        while (length > 0) {
+            ensureSpace();
+            int index = writePosition & mask;
+            int free = ring.length - (writePosition - frameStart);
+            int size = Math.min(length, Math.min(free, ring.length - index));
+            System.arraycopy(data, offset, ring, index, size);
+            writePosition += size;
+            offset += size;
+            length -= size;
+            scan();
+        }
+    }
+
+    private void ensureSpace() {
+        if (writePosition - frameStart == ring.length) {
+            // A frame larger than the ring: drop it and resynchronise on the next newline.
+            overflowCount++;
+            discarding = true;
+            frameStart = writePosition;
+            scanPosition = writePosition;
+        }
+    }
+
+    private void scan() {
+        for (int position = scanPosition; position != writePosition; position++) {
+            if (ring[position & mask] == '\n') {
+                if (discarding) {
+                    discarding = false;
+                } else {
+                    dispatch(frameStart, position);
+                }
+                frameStart = position + 1;
+            }
+        }
+        scanPosition = writePosition;
+        if (frameStart > REBASE_THRESHOLD) {
+            // Keep positions far from int overflow; shifting by whole rings leaves indices intact.
+            int shift = frameStart & ~mask;
+            frameStart -= shift;
+            scanPosition -= shift;
+            writePosition -= shift;
+        }
+    }
+
+    private void dispatch(int start, int end) {
+        while (start < end && byteAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && byteAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+
+        listener.onFrame(slice.set(start, end));
+        boolean framed = byteAt(end - 1) == '>';
+        if (framed && startsWith(start, end, STAT_PREFIX) && decodeStat(start + STAT_PREFIX.length, end - 1)) {
+            return;
+        }
+        if (framed && startsWith(start, end, LOG_PREFIX)) {
+            listener.onLog(slice.set(start + LOG_PREFIX.length, end - 1));
+            return;
+        }
+        if (framed && startsWith(start, end, ACK_PREFIX)) {
+            malformed = false;
+            int sequence = (int) parseFixed(start + ACK_PREFIX.length, end - 1, 0);
+            if (!malformed) {
+                listener.onAck(sequence);
+                return;
+            }
+        }
+        if (framed && startsWith(start, end, CREDIT_PREFIX)
+                && decodeCredit(start + CREDIT_PREFIX.length, end - 1)) {
+            return;
+        }
+        listener.onOther(slice.set(start, end));
+    }
+
+    private boolean decodeStat(int start, int end) {
+        malformed = false;
+        int creditStart = -1;
+        int pwmEnd = indexOf(start, end, ':');
+        if (pwmEnd < 0) {
+            return false;
+        }
+        int pwm = (int) parseFixed(start, pwmEnd, 0);
+        int tiltEnd = indexOf(pwmEnd + 1, end, ':');
+        float tilt;
+        int batteryMillivolts = 0;
+        if (tiltEnd < 0) {
+            tilt = parseFixed(pwmEnd + 1, end, 3) / 1000f;
+        } else {
+            tilt = parseFixed(pwmEnd + 1, tiltEnd, 3) / 1000f;
+            int batteryEnd = end;
+            int colon = indexOf(tiltEnd + 1, end, ':');
+            if (colon >= 0) {
+                batteryEnd = colon;
+                creditStart = colon + 1;
+            }
+            if (batteryEnd > tiltEnd + 1 && (byteAt(batteryEnd - 1) | 0x20) == 'v') {
+                batteryEnd--;
+            }
+            batteryMillivolts = (int) parseFixed(tiltEnd + 1, batteryEnd, 3);
+        }
+        if (malformed) {
+            return false;
+        }
+        listener.onStat(pwm, tilt, batteryMillivolts);
+        if (creditStart >= 0) {
+            decodeCredit(creditStart, end);
+        }
+        return true;
+    }
+
+    private boolean decodeCredit(int start, int end) {
+        malformed = false;
+        int receivedEnd = indexOf(start, end, ':');
+        if (receivedEnd < 0) {
+            return false;
+        }
+        int received = (int) parseFixed(start, receivedEnd, 0);
+        int free = (int) parseFixed(receivedEnd + 1, end, 0);
+        if (malformed) {
+            return false;
+        }
+        listener.onCredit(received, free);
+        return true;
+    }
+
+    /**
+     * Parses a signed decimal into a fixed-point long with {@code scale} fractional digits,
+     * flagging {@link #malformed} instead of throwing.
+     */
+    private long parseFixed(int start, int end, int scale) {
+        boolean negative = false;
+        if (start < end && (byteAt(start) == '-' || byteAt(start) == '+')) {
+            negative = byteAt(start) == '-';
+            start++;
+        }
+        if (start == end) {
+            malformed = true;
+            return 0;
+        }
+        long value = 0;
+        int fractionDigits = -1;
+        for (int position = start; position < end; position++) {
+            int b = byteAt(position);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (fractionDigits < 0) {
+                    value = value * 10 + (b - '0');
+                } else if (fractionDigits < scale) {
+                    value = value * 10 + (b - '0');
+                    fractionDigits++;
+                }
+            } else {
+                malformed = true;
+                return 0;
+            }
+        }
+        for (int i = Math.max(fractionDigits, 0); i < scale; i++) {
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+
+    private int indexOf(int start, int end, char target) {
+        for (int position = start; position < end; position++) {
+            if (byteAt(position) == target) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith(int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (byteAt(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int byteAt(int position) {
+        return ring[position & mask] & 0xFF;
+    }
+
+    private final class Slice implements CharSequence {
+        private int start;
+        private int length;
+
+        Slice set(int start, int end) {
+            this.start = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) byteAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int startIndex, int endIndex) {
+            return toString().substring(startIndex, endIndex);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+/**
+ * Legacy line protocol, e.g. {@code <DRV:-120:90>\n} or {@code <MOV:1:45:800:2>\n} (joint,
+ * angle, duration in ms, profile code), for firmware without binary framing.
+ * Sequenced frames carry the sequence as an extra trailing field: {@code <DRV:-120:90:17>}.
+ */
+public class TextCommandEncoder implements CommandEncoder {
+
+    private static final byte[] DRIVE_PREFIX = {'<', 'D', 'R', 'V', ':'};
+    private static final byte[] ARM_PREFIX = {'<', 'A', 'R', 'M', ':'};
+    private static final byte[] GRIPPER_PREFIX = {'<', 'G', 'R', 'P', ':'};
+    private static final byte[] MOVE_PREFIX = {'<', 'M', 'O', 'V', ':'};
+
+    @Override
+    public int encodeDrive(byte[] target, int offset, int sequence, int speed, int angle) {
+        int position = putBytes(target, offset, DRIVE_PREFIX);
+        position = putInt(target, position, speed);
+        target[position++] = ':';
+        position = putInt(target, position, angle);
+        return finish(target, offset, position, sequence);
+    }
+
+    @Override
+    public int encodeArm(byte[] target, int offset, int sequence, int joint, int angle) {
+        int position = putBytes(target, offset, ARM_PREFIX);
+        position = putInt(target, position, joint);
+        target[position++] = ':';
+        position = putInt(target, position, angle);
+        return finish(target, offset, position, sequence);
+    }
+
+    @Override
+    public int encodeArmMove(byte[] target, int offset, int sequence, int joint, int angle,
+                             int durationMillis, int profile) {
+        int position = putBytes(target, offset, MOVE_PREFIX);
+        position = putInt(target, position, joint);
+        target[position++] = ':';
+        position = putInt(target, position, angle);
+        target[position++] = ':';
+        position = putInt(target, position, durationMillis);
+        target[position++] = ':';
+        position = putInt(target, position, profile);
+        return finish(target, offset, position, sequence);
+    }
+
+    @Override
+    public int encodeGripper(byte[] target, int offset, int sequence, boolean grab) {
+        int position = putBytes(target, offset, GRIPPER_PREFIX);
+        target[position++] = (byte) (grab ? '1' : '0');
+        return finish(target, offset, position, sequence);
+    }
+
+    /**
+     * Encodes a free-form command as UTF-8 followed by a newline, or returns -1 if it does not
+     * fit. These are the same bytes {@code String.getBytes(UTF_8)} gives for commands too long
+     * for any buffer, so what goes on the wire never depends on a command's length.
+     */
+    public static int encodeLine(byte[] target, int offset, CharSequence command) {
+        int position = offset;
+        int length = command.length();
+        for (int i = 0; i < length; i++) {
+            int codePoint = command.charAt(i);
+            if (Character.isHighSurrogate((char) codePoint) && i + 1 < length
+                    && Character.isLowSurrogate(command.charAt(i + 1))) {
+                codePoint = Character.toCodePoint((char) codePoint, command.charAt(++i));
+            } else if (Character.isSurrogate((char) codePoint)) {
+                // Unpaired, replaced as String.getBytes does.
+                codePoint = '?';
+            }
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (position + size + 1 > target.length) {
+                return -1;
+            }
+            if (size == 1) {
+                target[position++] = (byte) codePoint;
+            } else if (size == 2) {
+                target[position++] = (byte) (0xC0 | (codePoint >> 6));
+            } else if (size == 3) {
+                target[position++] = (byte) (0xE0 | (codePoint >> 12));
+            } else {
+                target[position++] = (byte) (0xF0 | (codePoint >> 18));
+            }
+            for (int shift = 6 * (size - 2); shift >= 0; shift -= 6) {
+                target[position++] = (byte) (0x80 | ((codePoint >> shift) & 0x3F));
+            }
+        }
+        if (position + 1 > target.length) {
+            return -1;
+        }
+        target[position++] = '\n';
+        return position - offset;
+    }
+
+    static int putInt(byte[] target, int position, int value) {
+        if (value < 0) {
+            target[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            target[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    private static int putBytes(byte[] target, int position, byte[] source) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+
+    private static int finish(byte[] target, int offset, int position, int sequence) {
+        if (sequence != NO_SEQUENCE) {
+            target[position++] = ':';
+            position = putInt(target, position, sequence);
+        }
+        target[position++] = '>';
+        target[position++] = '\n';
+        return position - offset;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.arduinobluetoothcontroller.telemetry;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+/**
+ * Hand-off from the reader thread to a frame-driven consumer such as the UI thread. STAT
+ * samples are conflated to the latest value and log lines are collected into a batch; the
+ * first post after a dispatch asks the {@link FrameScheduler} for one frame, and
+ * {@link #dispatch} delivers everything pending in a single call. However chatty the firmware,
+ * the consumer sees at most one STAT update and one log batch per frame.
+ */
+public class TelemetryConflator {
+
+    public interface FrameScheduler {
+        /**
+         * Arrange for {@link #dispatch} to be called on the next frame. May be called from any
+         * thread.
+         */
+        void requestFrame();
+    }
+
+    public interface Sink {
+        void onStat(int pwm, float tilt, int batteryMillivolts);
+
+        /**
+         * {@code lines} is reused after the call returns.
+         */
+        void onLogs(String[] lines, int count);
+    }
+
+    public static final int DEFAULT_LOG_CAPACITY = 128;
+
+    private final Clock clock;
+    private final FrameScheduler scheduler;
+    private final Object lock = new Object();
+
+    // Guarded by lock.
+    private String[] pendingLogs;
+    private int pendingLogCount;
+    private boolean statPending;
+    private int pwm;
+    private float tilt;
+    private int batteryMillivolts;
+    private boolean frameRequested;
+    private long firstPendingNanos;
+
+    // Owned by the dispatching thread.
+    private String[] deliveringLogs;
+
+    private volatile long statsPosted;
+    private volatile long statsConflated;
+    private volatile long logsPosted;
+    private volatile long logsDropped;
+    private volatile long framesDispatched;
+    private volatile long totalLagNanos;
+    private volatile long maxLagNanos;
+
+    public TelemetryConflator(Clock clock, FrameScheduler scheduler) {
+        this(clock, DEFAULT_LOG_CAPACITY, scheduler);
+    }
+
+    /**
+     * {@code logCapacity} bounds the lines held for one frame; further lines until the next
+     * dispatch are dropped and counted.
+     */
+    public TelemetryConflator(Clock clock, int logCapacity, FrameScheduler scheduler) {
+        if (logCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.clock = clock;
+        this.scheduler = scheduler;
+        pendingLogs = new String[logCapacity];
+        deliveringLogs = new String[logCapacity];
+    }
+
+    public void postStat(int pwm, float tilt, int batteryMillivolts) {
+        boolean request;
+        synchronized (lock) {
+            if (statPending) {
+                statsConflated++;
+            }
+            statPending = true;
+            this.pwm = pwm;
+            this.tilt = tilt;
+            this.batteryMillivolts = batteryMillivolts;
+            statsPosted++;
+            request = markPending();
+        }
+        if (request) {
+            scheduler.requestFrame();
+        }
+    }
+
+    public void postLog(String line) {
+        if (line == null) {
+            return;
+        }
+        boolean request;
+        synchronized (lock) {
+            logsPosted++;
+            if (pendingLogCount == pendingLogs.length) {
+                logsDropped++;
+                return;
+            }
+            pendingLogs[pendingLogCount++] = line;
+            request = markPending();
+        }
+        if (request) {
+            scheduler.requestFrame();
+        }
+    }
+
+    /**
+     * Delivers the latest STAT sample and the pending log batch. Call once per frame on the
+     * consuming thread.
+     */
+    public void dispatch(Sink sink) {
+        boolean stat;
+        int statPwm;
+        float statTilt;
+        int statBattery;
+        int logCount;
+        long pendingSince;
+        synchronized (lock) {
+            if (!frameRequested) {
+                return;
+            }
+            frameRequested = false;
+            stat = statPending;
+            statPending = false;
+            statPwm = pwm;
+            statTilt = tilt;
+            statBattery = batteryMillivolts;
+            String[] swap = deliveringLogs;
+            deliveringLogs = pendingLogs;
+            pendingLogs = swap;
+            logCount = pendingLogCount;
+            pendingLogCount = 0;
+            pendingSince = firstPendingNanos;
+        }
+
+        long lag = clock.nanoTime() - pendingSince;
+        framesDispatched++;
+        totalLagNanos += lag;
+        if (lag > maxLagNanos) {
+            maxLagNanos = lag;
+        }
+        if (stat) {
+            sink.onStat(statPwm, statTilt, statBattery);
+        }
+        if (logCount > 0) {
+            sink.onLogs(deliveringLogs, logCount);
+            for (int i = 0; i < logCount; i++) {
+                deliveringLogs[i] = null;
+            }
+        }
+    }
+
+    public long getStatsPosted() {
+        return statsPosted;
+    }
+
+    /**
+     * STAT samples overwritten by a newer one before they were delivered.
+     */
+    public long getStatsConflated() {
+        return statsConflated;
+    }
+
+    public long getLogsPosted() {
+        return logsPosted;
+    }
+
+    public long getLogsDropped() {
+        return logsDropped;
+    }
+
+    public long getFramesDispatched() {
+        return framesDispatched;
+    }
+
+    /**
+     * Time from the first undelivered post to its dispatch, averaged over dispatched frames.
+     */
+    public long getMeanLagNanos() {
+        long frames = framesDispatched;
+        return frames == 0 ? 0L : totalLagNanos / frames;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    // Called with lock held; returns true if the caller should request a frame.
+    private boolean markPending() {
+        if (frameRequested) {
+            return false;
+        }
+        frameRequested = true;
+        firstPendingNanos = clock.nanoTime();
+        return true;
+    }
+}
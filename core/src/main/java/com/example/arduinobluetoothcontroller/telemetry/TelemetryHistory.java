@@ -0,0 +1,329 @@
+package com.example.arduinobluetoothcontroller.telemetry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-memory history of STAT samples. Recent samples are kept verbatim in a ring of primitive
+ * columns; every sample is also folded into time buckets holding min/max/sum per column, which
+ * keep a much longer, downsampled history once raw samples have been overwritten. Timestamps
+ * are {@link com.example.arduinobluetoothcontroller.time.Clock} values and must be non-decreasing.
+ */
+public class TelemetryHistory {
+
+    public interface SampleVisitor {
+        void onSample(long timestampNanos, int pwm, float tilt, int batteryMillivolts);
+    }
+
+    public interface BucketVisitor {
+        void onBucket(Bucket bucket);
+    }
+
+    public static final int DEFAULT_SAMPLE_CAPACITY = 4096;
+    public static final int DEFAULT_BUCKET_CAPACITY = 3600;
+    public static final long DEFAULT_BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Aggregate over a time range. Instances handed to a {@link BucketVisitor} are reused.
+     */
+    public static final class Bucket {
+        private long startNanos;
+        private int count;
+        private int pwmMin;
+        private int pwmMax;
+        private long pwmSum;
+        private float tiltMin;
+        private float tiltMax;
+        private double tiltSum;
+        private int batteryMin;
+        private int batteryMax;
+        private long batterySum;
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getPwmMin() {
+            return pwmMin;
+        }
+
+        public int getPwmMax() {
+            return pwmMax;
+        }
+
+        public float getPwmAverage() {
+            return count == 0 ? 0f : (float) pwmSum / count;
+        }
+
+        public float getTiltMin() {
+            return tiltMin;
+        }
+
+        public float getTiltMax() {
+            return tiltMax;
+        }
+
+        public float getTiltAverage() {
+            return count == 0 ? 0f : (float) (tiltSum / count);
+        }
+
+        public int getBatteryMinMillivolts() {
+            return batteryMin;
+        }
+
+        public int getBatteryMaxMillivolts() {
+            return batteryMax;
+        }
+
+        public int getBatteryAverageMillivolts() {
+            return count == 0 ? 0 : (int) (batterySum / count);
+        }
+
+        void reset(long start) {
+            startNanos = start;
+            count = 0;
+            pwmSum = 0;
+            tiltSum = 0;
+            batterySum = 0;
+        }
+
+        void merge(int samples, int pwmLow, int pwmHigh, float tiltLow, float tiltHigh,
+                   int batteryLow, int batteryHigh, long pwmTotal, double tiltTotal,
+                   long batteryTotal) {
+            if (count == 0) {
+                pwmMin = pwmLow;
+                pwmMax = pwmHigh;
+                tiltMin = tiltLow;
+                tiltMax = tiltHigh;
+                batteryMin = batteryLow;
+                batteryMax = batteryHigh;
+            } else {
+                pwmMin = Math.min(pwmMin, pwmLow);
+                pwmMax = Math.max(pwmMax, pwmHigh);
+                tiltMin = Math.min(tiltMin, tiltLow);
+                tiltMax = Math.max(tiltMax, tiltHigh);
+                batteryMin = Math.min(batteryMin, batteryLow);
+                batteryMax = Math.max(batteryMax, batteryHigh);
+            }
+            count += samples;
+            pwmSum += pwmTotal;
+            tiltSum += tiltTotal;
+            batterySum += batteryTotal;
+        }
+
+        void addSample(int pwm, float tilt, int battery) {
+            merge(1, pwm, pwm, tilt, tilt, battery, battery, pwm, tilt, battery);
+        }
+    }
+
+    private final long bucketNanos;
+
+    private final long[] sampleTimes;
+    private final int[] samplePwm;
+    private final float[] sampleTilt;
+    private final int[] sampleBattery;
+    private int sampleHead;
+    private int sampleCount;
+
+    private final long[] bucketStarts;
+    private final int[] bucketCounts;
+    private final int[] bucketPwmMin;
+    private final int[] bucketPwmMax;
+    private final long[] bucketPwmSum;
+    private final float[] bucketTiltMin;
+    private final float[] bucketTiltMax;
+    private final double[] bucketTiltSum;
+    private final int[] bucketBatteryMin;
+    private final int[] bucketBatteryMax;
+    private final long[] bucketBatterySum;
+    private int bucketHead;
+    private int bucketCount;
+
+    private final Bucket visitBucket = new Bucket();
+
+    public TelemetryHistory() {
+        this(DEFAULT_SAMPLE_CAPACITY, DEFAULT_BUCKET_CAPACITY, DEFAULT_BUCKET_NANOS);
+    }
+
+    public TelemetryHistory(int sampleCapacity, int bucketCapacity, long bucketNanos) {
+        this.bucketNanos = bucketNanos;
+        sampleTimes = new long[sampleCapacity];
+        samplePwm = new int[sampleCapacity];
+        sampleTilt = new float[sampleCapacity];
+        sampleBattery = new int[sampleCapacity];
+        bucketStarts = new long[bucketCapacity];
+        bucketCounts = new int[bucketCapacity];
+        bucketPwmMin = new int[bucketCapacity];
+        bucketPwmMax = new int[bucketCapacity];
+        bucketPwmSum = new long[bucketCapacity];
+        bucketTiltMin = new float[bucketCapacity];
+        bucketTiltMax = new float[bucketCapacity];
+        bucketTiltSum = new double[bucketCapacity];
+        bucketBatteryMin = new int[bucketCapacity];
+        bucketBatteryMax = new int[bucketCapacity];
+        bucketBatterySum = new long[bucketCapacity];
+    }
+
+    public synchronized void record(long timestampNanos, int pwm, float tilt, int batteryMillivolts) {
+        int index = (sampleHead + sampleCount) % sampleTimes.length;
+        if (sampleCount == sampleTimes.length) {
+            sampleHead = (sampleHead + 1) % sampleTimes.length;
+        } else {
+            sampleCount++;
+        }
+        sampleTimes[index] = timestampNanos;
+        samplePwm[index] = pwm;
+        sampleTilt[index] = tilt;
+        sampleBattery[index] = batteryMillivolts;
+
+        int bucket = currentBucket(timestampNanos);
+        if (bucketCounts[bucket] == 0) {
+            bucketPwmMin[bucket] = pwm;
+            bucketPwmMax[bucket] = pwm;
+            bucketTiltMin[bucket] = tilt;
+            bucketTiltMax[bucket] = tilt;
+            bucketBatteryMin[bucket] = batteryMillivolts;
+            bucketBatteryMax[bucket] = batteryMillivolts;
+        } else {
+            bucketPwmMin[bucket] = Math.min(bucketPwmMin[bucket], pwm);
+            bucketPwmMax[bucket] = Math.max(bucketPwmMax[bucket], pwm);
+            bucketTiltMin[bucket] = Math.min(bucketTiltMin[bucket], tilt);
+            bucketTiltMax[bucket] = Math.max(bucketTiltMax[bucket], tilt);
+            bucketBatteryMin[bucket] = Math.min(bucketBatteryMin[bucket], batteryMillivolts);
+            bucketBatteryMax[bucket] = Math.max(bucketBatteryMax[bucket], batteryMillivolts);
+        }
+        bucketCounts[bucket]++;
+        bucketPwmSum[bucket] += pwm;
+        bucketTiltSum[bucket] += tilt;
+        bucketBatterySum[bucket] += batteryMillivolts;
+    }
+
+    public synchronized int getSampleCount() {
+        return sampleCount;
+    }
+
+    public synchronized int getBucketCount() {
+        return bucketCount;
+    }
+
+    public synchronized void clear() {
+        sampleHead = 0;
+        sampleCount = 0;
+        bucketHead = 0;
+        bucketCount = 0;
+    }
+
+    /**
+     * Visits raw samples with a timestamp at or after {@code fromNanos}, oldest first. Returns
+     * the number visited.
+     */
+    public synchronized int forEachSample(long fromNanos, SampleVisitor visitor) {
+        int visited = 0;
+        for (int i = firstSampleAtOrAfter(fromNanos); i < sampleCount; i++) {
+            int index = (sampleHead + i) % sampleTimes.length;
+            visitor.onSample(sampleTimes[index], samplePwm[index], sampleTilt[index],
+                    sampleBattery[index]);
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Visits buckets that end after {@code fromNanos}, oldest first. Returns the number visited.
+     */
+    public synchronized int forEachBucket(long fromNanos, BucketVisitor visitor) {
+        int visited = 0;
+        for (int i = firstBucketEndingAfter(fromNanos); i < bucketCount; i++) {
+            loadBucket((bucketHead + i) % bucketStarts.length, visitBucket);
+            visitor.onBucket(visitBucket);
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Aggregates everything recorded since {@code fromNanos} into {@code target}. Raw samples are
+     * used when they reach back far enough, otherwise buckets (so the range start is rounded
+     * down to a bucket boundary).
+     */
+    public synchronized Bucket summarizeSince(long fromNanos, Bucket target) {
+        target.reset(fromNanos);
+        if (sampleCount > 0 && sampleTimes[sampleHead] <= fromNanos) {
+            for (int i = firstSampleAtOrAfter(fromNanos); i < sampleCount; i++) {
+                int index = (sampleHead + i) % sampleTimes.length;
+                target.addSample(samplePwm[index], sampleTilt[index], sampleBattery[index]);
+            }
+            return target;
+        }
+        for (int i = firstBucketEndingAfter(fromNanos); i < bucketCount; i++) {
+            mergeBucket((bucketHead + i) % bucketStarts.length, target);
+        }
+        return target;
+    }
+
+    private int currentBucket(long timestampNanos) {
+        long start = timestampNanos - Math.floorMod(timestampNanos, bucketNanos);
+        if (bucketCount > 0) {
+            int newest = (bucketHead + bucketCount - 1) % bucketStarts.length;
+            if (bucketStarts[newest] == start) {
+                return newest;
+            }
+        }
+        int index = (bucketHead + bucketCount) % bucketStarts.length;
+        if (bucketCount == bucketStarts.length) {
+            bucketHead = (bucketHead + 1) % bucketStarts.length;
+        } else {
+            bucketCount++;
+        }
+        bucketStarts[index] = start;
+        bucketCounts[index] = 0;
+        bucketPwmSum[index] = 0;
+        bucketTiltSum[index] = 0;
+        bucketBatterySum[index] = 0;
+        return index;
+    }
+
+    private void loadBucket(int index, Bucket target) {
+        target.reset(bucketStarts[index]);
+        mergeBucket(index, target);
+    }
+
+    private void mergeBucket(int index, Bucket target) {
+        target.merge(bucketCounts[index],
+                bucketPwmMin[index], bucketPwmMax[index],
+                bucketTiltMin[index], bucketTiltMax[index],
+                bucketBatteryMin[index], bucketBatteryMax[index],
+                bucketPwmSum[index], bucketTiltSum[index], bucketBatterySum[index]);
+    }
+
+    private int firstSampleAtOrAfter(long fromNanos) {
+        int low = 0;
+        int high = sampleCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sampleTimes[(sampleHead + middle) % sampleTimes.length] < fromNanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int firstBucketEndingAfter(long fromNanos) {
+        int low = 0;
+        int high = bucketCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (bucketStarts[(bucketHead + middle) % bucketStarts.length] + bucketNanos <= fromNanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
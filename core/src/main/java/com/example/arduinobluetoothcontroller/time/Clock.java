@@ -0,0 +1,13 @@
+package com.example.arduinobluetoothcontroller.time;
+
+/**
+ * Monotonic nanosecond time source for telemetry, latency and trace timestamps, so tests and
+ * simulations can run the link on virtual time. Blocking waits (batch windows, control loop
+ * parking, replay pacing) always use real time.
+ */
+public interface Clock {
+
+    Clock SYSTEM = System::nanoTime;
+
+    long nanoTime();
+}
@@ -0,0 +1,32 @@
+package com.example.arduinobluetoothcontroller.time;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock that only moves when told to.
+ */
+public class ManualClock implements Clock {
+
+    private final AtomicLong nanos;
+
+    public ManualClock() {
+        this(0L);
+    }
+
+    public ManualClock(long startNanos) {
+        nanos = new AtomicLong(startNanos);
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos.get();
+    }
+
+    public void set(long nowNanos) {
+        nanos.set(nowNanos);
+    }
+
+    public long advance(long deltaNanos) {
+        return nanos.addAndGet(deltaNanos);
+    }
+}
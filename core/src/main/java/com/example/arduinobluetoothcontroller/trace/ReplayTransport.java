@@ -0,0 +1,241 @@
+package com.example.arduinobluetoothcontroller.trace;
+
+import com.example.arduinobluetoothcontroller.transport.Transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays the inbound side of a recorded session into a controller's reader, so the parser and
+ * listener dispatch run exactly as they did against the vehicle. Inbound records are released
+ * at their original spacing divided by the speed factor; {@link #AS_FAST_AS_POSSIBLE} drops
+ * the pacing entirely. When the trace is exhausted the input stream reports end of stream,
+ * which disconnects the controller. Outbound bytes are counted and forwarded to an optional
+ * sink; attach a {@link SessionRecorder} to the controller to capture them for
+ * {@link TraceDiff}.
+ */
+public class ReplayTransport implements Transport {
+
+    public static final double ORIGINAL_SPEED = 1d;
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final File sessionDirectory;
+    private final double speed;
+    private final OutputStream outboundSink;
+
+    private volatile SessionTraceReader reader;
+    private volatile boolean open;
+    private volatile long inboundRecordCount;
+    private volatile long outboundByteCount;
+
+    public ReplayTransport(File sessionDirectory, double speed) {
+        this(sessionDirectory, speed, null);
+    }
+
+    public ReplayTransport(File sessionDirectory, double speed, OutputStream outboundSink) {
+        if (!(speed > 0d)) {
+            throw new IllegalArgumentException("Speed must be positive.");
+        }
+        this.sessionDirectory = sessionDirectory;
+        this.speed = speed;
+        this.outboundSink = outboundSink;
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        if (open) {
+            return;
+        }
+        reader = new SessionTraceReader(sessionDirectory);
+        inboundRecordCount = 0;
+        outboundByteCount = 0;
+        open = true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        SessionTraceReader current = reader;
+        if (current == null) {
+            throw new IOException("Replay not open.");
+        }
+        return new ReplayInputStream(current);
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int value) throws IOException {
+                outboundByteCount++;
+                if (outboundSink != null) {
+                    outboundSink.write(value);
+                }
+            }
+
+            @Override
+            public void write(byte[] source, int offset, int length) throws IOException {
+                outboundByteCount += length;
+                if (outboundSink != null) {
+                    outboundSink.write(source, offset, length);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (outboundSink != null) {
+                    outboundSink.flush();
+                }
+            }
+        };
+    }
+
+    public long getInboundRecordCount() {
+        return inboundRecordCount;
+    }
+
+    public long getOutboundByteCount() {
+        return outboundByteCount;
+    }
+
+    @Override
+    public synchronized void close() {
+        open = false;
+        SessionTraceReader current = reader;
+        reader = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "replay " + sessionDirectory.getName();
+    }
+
+    @Override
+    public String getAddress() {
+        return "replay:" + sessionDirectory.getPath();
+    }
+
+    private final class ReplayInputStream extends InputStream {
+
+        private final SessionTraceReader trace;
+        private final SessionTraceReader.Record record = new SessionTraceReader.Record();
+        private final byte[] single = new byte[1];
+        private long traceStartNanos = -1;
+        private long replayStartNanos;
+        private boolean pending;
+        private int pieceOffset;
+        private boolean exhausted;
+
+        ReplayInputStream(SessionTraceReader trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int written = 0;
+            while (written < length) {
+                if (!pending && !advance()) {
+                    break;
+                }
+                long due = dueNanos(record.getTimestampNanos());
+                if (written > 0 && System.nanoTime() < due) {
+                    // Hand over what is already due rather than holding it back.
+                    break;
+                }
+                awaitDue(due);
+                int frameLength = record.getLength() + 1 - pieceOffset;
+                if (frameLength > length - written) {
+                    if (written > 0) {
+                        break;
+                    }
+                    // Callers asking for less than one frame get it in pieces.
+                    frameLength = length;
+                }
+                written += copyFrame(target, offset + written, frameLength);
+            }
+            if (written == 0) {
+                return -1;
+            }
+            return written;
+        }
+
+        private int copyFrame(byte[] target, int offset, int size) {
+            int frameLength = record.getLength() + 1;
+            int copied = 0;
+            while (copied < size && pieceOffset < frameLength) {
+                target[offset + copied++] = pieceOffset < record.getLength()
+                        ? record.getPayload()[pieceOffset]
+                        : (byte) '\n';
+                pieceOffset++;
+            }
+            if (pieceOffset == frameLength) {
+                pending = false;
+                pieceOffset = 0;
+                inboundRecordCount++;
+            }
+            return copied;
+        }
+
+        private boolean advance() throws IOException {
+            if (exhausted || !open) {
+                return false;
+            }
+            while (trace.next(record)) {
+                if (record.getDirection() == SessionRecorder.DIRECTION_INBOUND) {
+                    if (traceStartNanos < 0) {
+                        traceStartNanos = record.getTimestampNanos();
+                        replayStartNanos = System.nanoTime();
+                    }
+                    pending = true;
+                    return true;
+                }
+            }
+            exhausted = true;
+            return false;
+        }
+
+        private long dueNanos(long timestampNanos) {
+            if (speed == AS_FAST_AS_POSSIBLE) {
+                return Long.MIN_VALUE;
+            }
+            return replayStartNanos + (long) ((timestampNanos - traceStartNanos) / speed);
+        }
+
+        private void awaitDue(long due) throws InterruptedIOException {
+            if (due == Long.MIN_VALUE) {
+                return;
+            }
+            long remaining;
+            while ((remaining = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("Replay interrupted.");
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            exhausted = true;
+        }
+    }
+}
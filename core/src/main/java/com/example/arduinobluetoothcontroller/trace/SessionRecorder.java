@@ -0,0 +1,387 @@
+package com.example.arduinobluetoothcontroller.trace;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flight recorder for link traffic. Producers ({@link #record}) only copy the record into a
+ * preallocated staging ring under a short lock and never touch the file system; if the ring is
+ * full the record is dropped and counted. A background thread drains the ring into
+ * memory-mapped segment files, rolls segments at {@code segmentSize}, and maintains a time
+ * index. See {@link TraceFormat} for the layout.
+ */
+public class SessionRecorder {
+
+    public static final byte DIRECTION_INBOUND = 0;
+    public static final byte DIRECTION_OUTBOUND = 1;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_STAGING_CAPACITY = 256 * 1024;
+    public static final int DEFAULT_MAX_SESSIONS = 10;
+
+    private static final int MAX_INDEX_ENTRIES = 64 * 1024;
+    private static final long INDEX_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final File rootDirectory;
+    private final Clock clock;
+    private final int segmentSize;
+    private final int maxSessions;
+    private final byte[] staging;
+    private final int stagingMask;
+    private final byte[] drainBuffer;
+    private final Object stagingLock = new Object();
+
+    // Guarded by stagingLock.
+    private int stagingHead;
+    private int stagingCount;
+    private long droppedRecords;
+    private long recordedRecords;
+
+    private volatile boolean open;
+    private volatile Thread drainThread;
+    // The last drain thread; a new session waits for it so two never share the segment state.
+    private Thread previousDrainThread;
+    private volatile File sessionDirectory;
+
+    // Owned by the drain thread while open.
+    private MappedByteBuffer segment;
+    private int segmentNumber;
+    private MappedByteBuffer index;
+    private int indexEntries;
+    private long lastIndexedNanos;
+
+    public SessionRecorder(File rootDirectory) {
+        this(rootDirectory, DEFAULT_SEGMENT_SIZE, DEFAULT_STAGING_CAPACITY, DEFAULT_MAX_SESSIONS);
+    }
+
+    public SessionRecorder(File rootDirectory, int segmentSize, int stagingCapacity, int maxSessions) {
+        this(rootDirectory, segmentSize, stagingCapacity, maxSessions, Clock.SYSTEM);
+    }
+
+    public SessionRecorder(File rootDirectory, int segmentSize, int stagingCapacity, int maxSessions,
+                           Clock clock) {
+        if (Integer.bitCount(stagingCapacity) != 1) {
+            throw new IllegalArgumentException("Staging capacity must be a power of two.");
+        }
+        this.rootDirectory = rootDirectory;
+        this.clock = clock;
+        this.segmentSize = segmentSize;
+        this.maxSessions = maxSessions;
+        this.staging = new byte[stagingCapacity];
+        this.stagingMask = stagingCapacity - 1;
+        this.drainBuffer = new byte[stagingCapacity];
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public File getSessionDirectory() {
+        return sessionDirectory;
+    }
+
+    public long getRecordedCount() {
+        synchronized (stagingLock) {
+            return recordedRecords;
+        }
+    }
+
+    public long getDroppedCount() {
+        synchronized (stagingLock) {
+            return droppedRecords;
+        }
+    }
+
+    /**
+     * Starts a new session directory. Performs file I/O; call it off the reader and writer
+     * threads. Fails if the previous session's drain thread has still not finished.
+     */
+    public synchronized void open() throws IOException {
+        if (open) {
+            return;
+        }
+        if (!awaitExit(previousDrainThread)) {
+            throw new IOException("Previous session is still being written.");
+        }
+        previousDrainThread = null;
+        pruneSessions();
+        File directory = createSessionDirectory();
+        sessionDirectory = directory;
+        segmentNumber = 0;
+        segment = mapSegment(0);
+        index = map(new File(directory, TraceFormat.INDEX_FILE_NAME),
+                TraceFormat.INDEX_HEADER_LENGTH + MAX_INDEX_ENTRIES * TraceFormat.INDEX_ENTRY_LENGTH);
+        index.putInt(0, TraceFormat.INDEX_MAGIC);
+        index.putInt(TraceFormat.INDEX_COUNT_OFFSET, 0);
+        indexEntries = 0;
+        lastIndexedNanos = Long.MIN_VALUE;
+        synchronized (stagingLock) {
+            stagingHead = 0;
+            stagingCount = 0;
+        }
+
+        open = true;
+        Thread thread = new Thread(this::drainLoop, "session-recorder");
+        thread.setDaemon(true);
+        drainThread = thread;
+        previousDrainThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Drains whatever is staged, flushes the mapped files and ends the session. Waits for the
+     * drain even if the calling thread is interrupted, and restores the interrupt afterwards.
+     */
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        Thread thread = drainThread;
+        drainThread = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            awaitExit(thread);
+        }
+    }
+
+    // Joins for up to CLOSE_TIMEOUT_NANOS regardless of interrupts; true if the thread is gone.
+    private static boolean awaitExit(Thread thread) {
+        if (thread == null) {
+            return true;
+        }
+        boolean interrupted = false;
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT_NANOS;
+        try {
+            while (thread.isAlive()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedJoin(thread, remaining);
+                } catch (InterruptedException interruptedException) {
+                    interrupted = true;
+                }
+            }
+            return true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Millisecond names can collide on a fast reconnect, so a taken name gets a suffix.
+    private File createSessionDirectory() throws IOException {
+        String base = "session-" + System.currentTimeMillis();
+        File directory = new File(rootDirectory, base);
+        for (int suffix = 1; !directory.mkdirs(); suffix++) {
+            if (!directory.exists() || suffix > 100) {
+                throw new IOException("Cannot create " + directory);
+            }
+            directory = new File(rootDirectory, base + "-" + suffix);
+        }
+        return directory;
+    }
+
+    public void record(byte direction, byte[] data, int offset, int length) {
+        if (!open) {
+            return;
+        }
+        long now = clock.nanoTime();
+        synchronized (stagingLock) {
+            if (!reserve(length)) {
+                return;
+            }
+            int position = writeHeader(length, direction, now);
+            for (int i = 0; i < length; i++) {
+                staging[(position + i) & stagingMask] = data[offset + i];
+            }
+        }
+    }
+
+    public void record(byte direction, CharSequence text) {
+        if (!open) {
+            return;
+        }
+        long now = clock.nanoTime();
+        int length = text.length();
+        synchronized (stagingLock) {
+            if (!reserve(length)) {
+                return;
+            }
+            int position = writeHeader(length, direction, now);
+            for (int i = 0; i < length; i++) {
+                staging[(position + i) & stagingMask] = (byte) text.charAt(i);
+            }
+        }
+    }
+
+    private boolean reserve(int payloadLength) {
+        int total = TraceFormat.RECORD_HEADER_LENGTH + payloadLength;
+        if (total > staging.length - stagingCount
+                || total > segmentSize - TraceFormat.SEGMENT_HEADER_LENGTH) {
+            droppedRecords++;
+            return false;
+        }
+        return true;
+    }
+
+    private int writeHeader(int length, byte direction, long timestampNanos) {
+        int position = stagingHead + stagingCount;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            staging[position++ & stagingMask] = (byte) (length >>> shift);
+        }
+        staging[position++ & stagingMask] = direction;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            staging[position++ & stagingMask] = (byte) (timestampNanos >>> shift);
+        }
+        stagingCount += TraceFormat.RECORD_HEADER_LENGTH + length;
+        recordedRecords++;
+        return position;
+    }
+
+    private void drainLoop() {
+        try {
+            while (open) {
+                LockSupport.parkNanos(this, DRAIN_INTERVAL_NANOS);
+                drain();
+            }
+            drain();
+        } catch (IOException ioException) {
+            open = false;
+        } finally {
+            finish();
+        }
+    }
+
+    private void drain() throws IOException {
+        int available;
+        synchronized (stagingLock) {
+            available = stagingCount;
+            int first = Math.min(available, staging.length - stagingHead);
+            System.arraycopy(staging, stagingHead, drainBuffer, 0, first);
+            System.arraycopy(staging, 0, drainBuffer, first, available - first);
+            stagingHead = (stagingHead + available) & stagingMask;
+            stagingCount = 0;
+        }
+
+        int position = 0;
+        while (position < available) {
+            int length = readInt(drainBuffer, position);
+            int total = TraceFormat.RECORD_HEADER_LENGTH + length;
+            long timestamp = readLong(drainBuffer, position + 5);
+            if (segment.remaining() < total) {
+                rollSegment();
+            }
+            if (segment.position() == TraceFormat.SEGMENT_HEADER_LENGTH
+                    || timestamp - lastIndexedNanos >= INDEX_INTERVAL_NANOS) {
+                addIndexEntry(timestamp, segment.position());
+            }
+            segment.put(drainBuffer, position, total);
+            position += total;
+        }
+        if (available > 0) {
+            segment.putLong(TraceFormat.SEGMENT_USED_OFFSET, segment.position());
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        segment.putLong(TraceFormat.SEGMENT_USED_OFFSET, segment.position());
+        segment.force();
+        segmentNumber++;
+        segment = mapSegment(segmentNumber);
+    }
+
+    private void addIndexEntry(long timestampNanos, int offset) {
+        if (indexEntries == MAX_INDEX_ENTRIES) {
+            return;
+        }
+        int position = TraceFormat.INDEX_HEADER_LENGTH + indexEntries * TraceFormat.INDEX_ENTRY_LENGTH;
+        index.putLong(position, timestampNanos);
+        index.putInt(position + 8, segmentNumber);
+        index.putLong(position + 12, offset);
+        indexEntries++;
+        index.putInt(TraceFormat.INDEX_COUNT_OFFSET, indexEntries);
+        lastIndexedNanos = timestampNanos;
+    }
+
+    private void finish() {
+        if (segment != null) {
+            segment.putLong(TraceFormat.SEGMENT_USED_OFFSET, segment.position());
+            segment.force();
+            segment = null;
+        }
+        if (index != null) {
+            index.force();
+            index = null;
+        }
+    }
+
+    private MappedByteBuffer mapSegment(int number) throws IOException {
+        MappedByteBuffer buffer = map(TraceFormat.segmentFile(sessionDirectory, number), segmentSize);
+        buffer.putInt(TraceFormat.SEGMENT_MAGIC);
+        buffer.putInt(number);
+        buffer.putLong(TraceFormat.SEGMENT_HEADER_LENGTH);
+        return buffer;
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private void pruneSessions() {
+        if (!rootDirectory.isDirectory() && !rootDirectory.mkdirs()) {
+            return;
+        }
+        File[] sessions = rootDirectory.listFiles(
+                file -> file.isDirectory() && file.getName().startsWith("session-"));
+        if (sessions == null || sessions.length < maxSessions) {
+            return;
+        }
+        Arrays.sort(sessions, (left, right) -> left.getName().compareTo(right.getName()));
+        for (int i = 0; i <= sessions.length - maxSessions; i++) {
+            deleteRecursively(sessions[i]);
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    static int readInt(byte[] data, int position) {
+        return ((data[position] & 0xFF) << 24)
+                | ((data[position + 1] & 0xFF) << 16)
+                | ((data[position + 2] & 0xFF) << 8)
+                | (data[position + 3] & 0xFF);
+    }
+
+    static long readLong(byte[] data, int position) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[position + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.arduinobluetoothcontroller.trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Sequential reader over a session written by {@link SessionRecorder}, with index-assisted
+ * {@link #seek(long)}. Records are copied into a caller-owned {@link Record}.
+ */
+public class SessionTraceReader implements Closeable {
+
+    public static final class Record {
+        private byte direction;
+        private long timestampNanos;
+        private byte[] payload = new byte[64];
+        private int length;
+
+        public byte getDirection() {
+            return direction;
+        }
+
+        public long getTimestampNanos() {
+            return timestampNanos;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    private final File sessionDirectory;
+    private final long[] indexTimestamps;
+    private final int[] indexSegments;
+    private final int[] indexOffsets;
+    private final int indexCount;
+
+    private MappedByteBuffer segment;
+    private int segmentNumber = -1;
+    private int segmentLimit;
+
+    public SessionTraceReader(File sessionDirectory) throws IOException {
+        this.sessionDirectory = sessionDirectory;
+        MappedByteBuffer index = mapReadOnly(new File(sessionDirectory, TraceFormat.INDEX_FILE_NAME));
+        if (index.getInt(0) != TraceFormat.INDEX_MAGIC) {
+            throw new IOException("Not a session index: " + sessionDirectory);
+        }
+        indexCount = index.getInt(TraceFormat.INDEX_COUNT_OFFSET);
+        indexTimestamps = new long[indexCount];
+        indexSegments = new int[indexCount];
+        indexOffsets = new int[indexCount];
+        for (int i = 0; i < indexCount; i++) {
+            int position = TraceFormat.INDEX_HEADER_LENGTH + i * TraceFormat.INDEX_ENTRY_LENGTH;
+            indexTimestamps[i] = index.getLong(position);
+            indexSegments[i] = index.getInt(position + 8);
+            indexOffsets[i] = (int) index.getLong(position + 12);
+        }
+        openSegment(0, TraceFormat.SEGMENT_HEADER_LENGTH);
+    }
+
+    public File getSessionDirectory() {
+        return sessionDirectory;
+    }
+
+    /**
+     * Timestamp of the first record, or -1 if the session is empty.
+     */
+    public long getStartNanos() {
+        return indexCount == 0 ? -1 : indexTimestamps[0];
+    }
+
+    /**
+     * Positions the reader so that the next record is the first one at or after
+     * {@code timestampNanos}.
+     */
+    public void seek(long timestampNanos) throws IOException {
+        int low = 0;
+        int high = indexCount - 1;
+        int entry = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indexTimestamps[mid] <= timestampNanos) {
+                entry = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (entry < 0) {
+            openSegment(0, TraceFormat.SEGMENT_HEADER_LENGTH);
+            return;
+        }
+        openSegment(indexSegments[entry], indexOffsets[entry]);
+
+        while (segment != null) {
+            int position = segment.position();
+            if (position >= segmentLimit) {
+                if (!openSegment(segmentNumber + 1, TraceFormat.SEGMENT_HEADER_LENGTH)) {
+                    return;
+                }
+                continue;
+            }
+            if (segment.getLong(position + 5) >= timestampNanos) {
+                return;
+            }
+            segment.position(position + TraceFormat.RECORD_HEADER_LENGTH + segment.getInt(position));
+        }
+    }
+
+    /**
+     * Reads the next record into {@code record}. Returns false at the end of the session.
+     */
+    public boolean next(Record record) throws IOException {
+        while (segment != null && segment.position() >= segmentLimit) {
+            if (!openSegment(segmentNumber + 1, TraceFormat.SEGMENT_HEADER_LENGTH)) {
+                return false;
+            }
+        }
+        if (segment == null) {
+            return false;
+        }
+        int length = segment.getInt();
+        record.direction = segment.get();
+        record.timestampNanos = segment.getLong();
+        if (record.payload.length < length) {
+            record.payload = new byte[Math.max(length, record.payload.length * 2)];
+        }
+        segment.get(record.payload, 0, length);
+        record.length = length;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        segment = null;
+    }
+
+    private boolean openSegment(int number, int offset) throws IOException {
+        if (number != segmentNumber || segment == null) {
+            File file = TraceFormat.segmentFile(sessionDirectory, number);
+            if (!file.isFile()) {
+                segment = null;
+                return false;
+            }
+            MappedByteBuffer buffer = mapReadOnly(file);
+            if (buffer.getInt(0) != TraceFormat.SEGMENT_MAGIC) {
+                throw new IOException("Corrupt segment: " + file);
+            }
+            segment = buffer;
+            segmentNumber = number;
+            segmentLimit = (int) buffer.getLong(TraceFormat.SEGMENT_USED_OFFSET);
+        }
+        segment.position(offset);
+        return true;
+    }
+
+    private static MappedByteBuffer mapReadOnly(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
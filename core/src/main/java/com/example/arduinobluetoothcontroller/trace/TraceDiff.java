@@ -0,0 +1,62 @@
+package com.example.arduinobluetoothcontroller.trace;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares the frames in one direction of two recorded sessions, ignoring timing. Used to check
+ * that a build replaying a trace sends the same commands as the build that recorded it.
+ */
+public final class TraceDiff {
+
+    public static final long IDENTICAL = -1;
+
+    private TraceDiff() {
+    }
+
+    /**
+     * Returns the index of the first frame in {@code direction} that differs between the two
+     * sessions, counting a missing frame as a difference, or {@link #IDENTICAL}.
+     */
+    public static long firstMismatch(File expected, File actual, byte direction) throws IOException {
+        try (SessionTraceReader expectedReader = new SessionTraceReader(expected);
+             SessionTraceReader actualReader = new SessionTraceReader(actual)) {
+            SessionTraceReader.Record expectedRecord = new SessionTraceReader.Record();
+            SessionTraceReader.Record actualRecord = new SessionTraceReader.Record();
+            long index = 0;
+            while (true) {
+                boolean hasExpected = next(expectedReader, expectedRecord, direction);
+                boolean hasActual = next(actualReader, actualRecord, direction);
+                if (!hasExpected && !hasActual) {
+                    return IDENTICAL;
+                }
+                if (hasExpected != hasActual || !samePayload(expectedRecord, actualRecord)) {
+                    return index;
+                }
+                index++;
+            }
+        }
+    }
+
+    private static boolean next(SessionTraceReader reader, SessionTraceReader.Record record,
+                                byte direction) throws IOException {
+        while (reader.next(record)) {
+            if (record.getDirection() == direction) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean samePayload(SessionTraceReader.Record left, SessionTraceReader.Record right) {
+        if (left.getLength() != right.getLength()) {
+            return false;
+        }
+        for (int i = 0; i < left.getLength(); i++) {
+            if (left.getPayload()[i] != right.getPayload()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.arduinobluetoothcontroller.trace;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * On-disk layout shared by {@link SessionRecorder} and {@link SessionTraceReader}.
+ *
+ * <p>A session is a directory of fixed-size segment files plus one index file. A segment starts
+ * with {@code int magic, int segmentNumber, long usedBytes} followed by records of
+ * {@code int payloadLength, byte direction, long timestampNanos, payload}. Records never span
+ * segments. The index starts with {@code int magic, int entryCount} followed by entries of
+ * {@code long timestampNanos, int segmentNumber, long offset}, in time order.
+ */
+final class TraceFormat {
+
+    static final int SEGMENT_MAGIC = 0x54524331;
+    static final int INDEX_MAGIC = 0x54524958;
+    static final int SEGMENT_HEADER_LENGTH = 16;
+    static final int SEGMENT_USED_OFFSET = 8;
+    static final int RECORD_HEADER_LENGTH = 13;
+    static final int INDEX_HEADER_LENGTH = 8;
+    static final int INDEX_COUNT_OFFSET = 4;
+    static final int INDEX_ENTRY_LENGTH = 20;
+    static final String INDEX_FILE_NAME = "index.idx";
+
+    private TraceFormat() {
+    }
+
+    static File segmentFile(File sessionDirectory, int segmentNumber) {
+        return new File(sessionDirectory, String.format(Locale.US, "%05d.seg", segmentNumber));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.arduinobluetoothcontroller.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Bounded in-memory byte channel. Unlike {@link java.io.PipedInputStream} it is not tied to
+ * the lifetime of the writing thread, so either end may be used from any executor.
+ */
+final class BytePipe {
+
+    private final byte[] buffer;
+    private final InputStream inputStream = new PipeInputStream();
+    private final OutputStream outputStream = new PipeOutputStream();
+
+    private int readIndex;
+    private int count;
+    private boolean closed;
+
+    BytePipe(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    InputStream getInputStream() {
+        return inputStream;
+    }
+
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    private synchronized int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (count == 0) {
+            if (closed) {
+                return -1;
+            }
+            awaitChange();
+        }
+        int size = Math.min(length, count);
+        int first = Math.min(size, buffer.length - readIndex);
+        System.arraycopy(buffer, readIndex, target, offset, first);
+        System.arraycopy(buffer, 0, target, offset + first, size - first);
+        readIndex = (readIndex + size) % buffer.length;
+        count -= size;
+        notifyAll();
+        return size;
+    }
+
+    private synchronized void write(byte[] source, int offset, int length) throws IOException {
+        while (length > 0) {
+            while (count == buffer.length && !closed) {
+                awaitChange();
+            }
+            if (closed) {
+                throw new IOException("Pipe closed.");
+            }
+            int writeIndex = (readIndex + count) % buffer.length;
+            int size = Math.min(length, Math.min(buffer.length - count, buffer.length - writeIndex));
+            System.arraycopy(source, offset, buffer, writeIndex, size);
+            count += size;
+            offset += size;
+            length -= size;
+            notifyAll();
+        }
+    }
+
+    private synchronized int available() {
+        return count;
+    }
+
+    private void awaitChange() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private final class PipeInputStream extends InputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            int size = BytePipe.this.read(single, 0, 1);
+            return size == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            return BytePipe.this.read(target, offset, length);
+        }
+
+        @Override
+        public int available() {
+            return BytePipe.this.available();
+        }
+
+        @Override
+        public void close() {
+            BytePipe.this.close();
+        }
+    }
+
+    private final class PipeOutputStream extends OutputStream {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int value) throws IOException {
+            single[0] = (byte) value;
+            BytePipe.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) throws IOException {
+            BytePipe.this.write(source, offset, length);
+        }
+
+        @Override
+        public void close() {
+            BytePipe.this.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.arduinobluetoothcontroller.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * In-memory transport. Bytes written by the controller are readable from
+ * {@link #getPeerInputStream()}, and bytes written to {@link #getPeerOutputStream()} arrive
+ * on the controller's reader, so a test or benchmark can play the vehicle.
+ */
+public class LoopbackTransport implements Transport {
+
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private final String name;
+    private final int capacity;
+
+    private BytePipe uplink;
+    private BytePipe downlink;
+    private volatile boolean open;
+
+    public LoopbackTransport() {
+        this("loopback", DEFAULT_CAPACITY);
+    }
+
+    public LoopbackTransport(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        createPipes();
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        if (uplink.isClosed() || downlink.isClosed()) {
+            createPipes();
+        }
+        open = true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() {
+        return downlink.getInputStream();
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() {
+        return uplink.getOutputStream();
+    }
+
+    public synchronized InputStream getPeerInputStream() {
+        return uplink.getInputStream();
+    }
+
+    public synchronized OutputStream getPeerOutputStream() {
+        return downlink.getOutputStream();
+    }
+
+    @Override
+    public synchronized void close() {
+        open = false;
+        uplink.close();
+        downlink.close();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getAddress() {
+        return "loopback:" + name;
+    }
+
+    private void createPipes() {
+        uplink = new BytePipe(capacity);
+        downlink = new BytePipe(capacity);
+    }
+}
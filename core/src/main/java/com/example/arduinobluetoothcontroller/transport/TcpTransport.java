@@ -0,0 +1,87 @@
+package com.example.arduinobluetoothcontroller.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+public class TcpTransport implements Transport {
+
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 3000;
+
+    private final String host;
+    private final int port;
+    private final int connectTimeoutMillis;
+
+    private volatile Socket socket;
+
+    public TcpTransport(String host, int port) {
+        this(host, port, DEFAULT_CONNECT_TIMEOUT_MS);
+    }
+
+    public TcpTransport(String host, int port, int connectTimeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    @Override
+    public void open() throws IOException {
+        Socket targetSocket = new Socket();
+        try {
+            targetSocket.setTcpNoDelay(true);
+            targetSocket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+        } catch (IOException ioException) {
+            targetSocket.close();
+            throw ioException;
+        }
+        socket = targetSocket;
+    }
+
+    @Override
+    public boolean isOpen() {
+        Socket current = socket;
+        return current != null && current.isConnected() && !current.isClosed();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return requireSocket().getInputStream();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return requireSocket().getOutputStream();
+    }
+
+    @Override
+    public void close() {
+        Socket current = socket;
+        socket = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "tcp";
+    }
+
+    @Override
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    private Socket requireSocket() throws IOException {
+        Socket current = socket;
+        if (current == null) {
+            throw new IOException("Transport not open.");
+        }
+        return current;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.arduinobluetoothcontroller.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface Transport {
+
+    void open() throws IOException;
+
+    boolean isOpen();
+
+    InputStream getInputStream() throws IOException;
+
+    OutputStream getOutputStream() throws IOException;
+
+    void close();
+
+    String getName();
+
+    String getAddress();
+}
@@ -0,0 +1,56 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import com.example.arduinobluetoothcontroller.protocol.MotionProfile;
+import com.example.arduinobluetoothcontroller.time.ManualClock;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArmTrajectoryTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final List<String> sent = new ArrayList<>();
+    private final ArmTrajectory trajectory = new ArmTrajectory(2, 0, 180, 90,
+            MotionProfile.TRAPEZOIDAL, 90f, clock,
+            (joint, angle, durationMillis, profile) ->
+                    sent.add(joint + ":" + angle + ":" + durationMillis));
+
+    @Test
+    public void durationRespectsPeakVelocityAndPositionFollowsProfile() {
+        // 90 degrees at 90 deg/s peak on a trapezoid (peak is 4/3 of the average).
+        assertEquals(1333, trajectory.moveTo(1, 180));
+
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(1333 / 2));
+        assertEquals(135f, trajectory.getPosition(1), 0.5f);
+        assertTrue(trajectory.isMoving(1));
+
+        clock.advance(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(180f, trajectory.getPosition(1), 0f);
+        assertFalse(trajectory.isMoving(1));
+        assertEquals(-1, trajectory.moveTo(1, 180));
+        assertEquals(Arrays.asList("1:180:1333"), sent);
+    }
+
+    @Test
+    public void holdStopsMidMoveAndReplansFromThere() {
+        trajectory.moveTo(0, 0);
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(500));
+        float position = trajectory.getPosition(0);
+        assertTrue(position < 90f && position > 0f);
+
+        trajectory.hold(0);
+
+        assertEquals(2, trajectory.getMoveCount());
+        assertEquals(Math.round(position), trajectory.getTarget(0));
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(Math.round(position), trajectory.getPosition(0), 0f);
+    }
+}
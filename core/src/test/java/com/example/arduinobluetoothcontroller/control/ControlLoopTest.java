@@ -0,0 +1,82 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ControlLoopTest {
+
+    @Test
+    public void slowTickDoesNotShiftLaterDeadlines() throws Exception {
+        long period = TimeUnit.MILLISECONDS.toNanos(10);
+        long[] deadlines = new long[10];
+        CountDownLatch done = new CountDownLatch(1);
+        ControlLoop loop = new ControlLoop("test-loop", period, (tickIndex, nowNanos) -> {
+            if (tickIndex < deadlines.length) {
+                deadlines[(int) tickIndex] = nowNanos;
+            }
+            if (tickIndex == 2) {
+                sleepQuietly(4);
+            }
+            if (tickIndex == deadlines.length - 1) {
+                done.countDown();
+            }
+        });
+
+        loop.start();
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        loop.stop();
+
+        long elapsed = deadlines[deadlines.length - 1] - deadlines[0];
+        long expected = period * (deadlines.length - 1);
+        assertTrue("elapsed " + elapsed, Math.abs(elapsed - expected) < period);
+        assertEquals(0, loop.getMissedTickCount());
+        assertFalse(loop.isRunning());
+    }
+
+    @Test
+    public void throwingTickIsReportedAndLoopKeepsRunning() throws Exception {
+        List<Throwable> reported = new CopyOnWriteArrayList<>();
+        List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        CountDownLatch ticked = new CountDownLatch(3);
+        ControlLoop loop = new ControlLoop("test-loop", TimeUnit.MILLISECONDS.toNanos(5),
+                (tickIndex, nowNanos) -> {
+                    ticked.countDown();
+                    if (tickIndex == 0) {
+                        throw new IllegalStateException("boom");
+                    }
+                },
+                runnable -> {
+                    Thread loopThread = new Thread(runnable, "test-loop");
+                    loopThread.setDaemon(true);
+                    loopThread.setUncaughtExceptionHandler((t, e) -> uncaught.add(e));
+                    return loopThread;
+                });
+        loop.setErrorListener((tickIndex, exception) -> reported.add(exception));
+
+        loop.start();
+        assertTrue(ticked.await(2, TimeUnit.SECONDS));
+        assertTrue(loop.isRunning());
+        loop.stop();
+
+        assertEquals(1, reported.size());
+        assertEquals("boom", reported.get(0).getMessage());
+        assertEquals(1, loop.getErrorCount());
+        assertTrue(uncaught.isEmpty());
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DriveThrottleTest {
+
+    @Test
+    public void flushSendsNewestSetpointOnce() {
+        DriveThrottle throttle = new DriveThrottle(0, 90);
+        List<String> sent = new ArrayList<>();
+        DriveThrottle.Sink sink = (speed, angle) -> sent.add(speed + ":" + angle);
+
+        throttle.update(120, 100);
+        throttle.update(-255, 45);
+
+        assertTrue(throttle.flush(sink));
+        assertFalse(throttle.flush(sink));
+        assertEquals(Arrays.asList("-255:45"), sent);
+        assertEquals(-255, throttle.getSpeed());
+        assertEquals(45, throttle.getAngle());
+    }
+
+    @Test
+    public void unchangedSetpointOnlyGoesOutAsHeartbeat() {
+        DriveThrottle throttle = new DriveThrottle(0, 90, 250L);
+        List<String> sent = new ArrayList<>();
+        DriveThrottle.Sink sink = (speed, angle) -> sent.add(speed + ":" + angle);
+
+        throttle.update(0, 90);
+        assertTrue(throttle.flush(sink, 0L));
+        throttle.update(0, 90);
+        assertFalse(throttle.flush(sink, 80L));
+        assertFalse(throttle.flush(sink, 160L));
+        assertTrue(throttle.flush(sink, 250L));
+        throttle.update(60, 90);
+        assertTrue(throttle.flush(sink, 300L));
+
+        assertEquals(Arrays.asList("0:90", "0:90", "60:90"), sent);
+        assertEquals(1, throttle.getSuppressedCount());
+        assertEquals(1, throttle.getHeartbeatCount());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HysteresisQuantizerTest {
+
+    @Test
+    public void holdsLevelUntilInputClearsTheBand() {
+        HysteresisQuantizer quantizer = new HysteresisQuantizer(10, 0.25f);
+
+        assertEquals(100, quantizer.quantize(101f));
+        // Past the plain rounding boundary at 105, but inside the hysteresis band.
+        assertEquals(100, quantizer.quantize(106f));
+        assertEquals(100, quantizer.quantize(94f));
+        assertEquals(110, quantizer.quantize(108f));
+        assertEquals(0, quantizer.quantize(0f));
+        assertEquals(-50, quantizer.quantize(-48f));
+    }
+}
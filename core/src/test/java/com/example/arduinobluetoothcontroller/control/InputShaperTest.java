@@ -0,0 +1,72 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InputShaperTest {
+
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+    @Test
+    public void radialDeadZoneKeepsDirectionAndRescales() {
+        InputShaper shaper = new InputShaper(new RadialDeadZone(0.2f));
+
+        shaper.shape(0.1f, 0.1f, 0L);
+        assertEquals(0f, shaper.getX(), 0f);
+        assertEquals(0f, shaper.getY(), 0f);
+
+        // Magnitude 0.6 maps to (0.6 - 0.2) / 0.8 = 0.5 along the same diagonal.
+        float axis = 0.6f / (float) Math.sqrt(2);
+        shaper.shape(axis, axis, 0L);
+        assertEquals(0.5f / (float) Math.sqrt(2), shaper.getX(), 1e-5f);
+        assertEquals(shaper.getX(), shaper.getY(), 0f);
+    }
+
+    @Test
+    public void heldStickSettlesOnTicksAndReleaseStopsAtOnce() {
+        InputShaper shaper = InputShaper.createDefault();
+        long now = 0L;
+        shaper.shape(0f, 1f, now);
+        float first = shaper.getY();
+        assertTrue(first > 0f && first < 1f);
+
+        int ticks = 0;
+        do {
+            now += FRAME_NANOS;
+            ticks++;
+        } while (shaper.tick(now) && ticks < 1000);
+        assertTrue(ticks < 1000);
+        assertEquals(1f, shaper.getY(), 0.01f);
+
+        shaper.shape(0f, 0f, now + FRAME_NANOS);
+        assertEquals(0f, shaper.getY(), 0f);
+        assertFalse(shaper.tick(now + 2 * FRAME_NANOS));
+    }
+
+    @Test
+    public void jitterIsSmoothedAndQuantizedAway() {
+        InputShaper shaper = new InputShaper(new OneEuroFilter(1.5f, 0.5f, 1.0f));
+        HysteresisQuantizer speed = new HysteresisQuantizer(5, 0.35f);
+        long now = 0L;
+        shaper.shape(0f, 0.5f, now);
+        int settled = speed.quantize(shaper.getY() * 255f);
+
+        int changes = 0;
+        for (int i = 1; i <= 120; i++) {
+            now += FRAME_NANOS;
+            // Finger tremor of about 1% of full scale.
+            shaper.shape(0f, 0.5f + (i % 2 == 0 ? 0.01f : -0.01f), now);
+            int quantized = speed.quantize(shaper.getY() * 255f);
+            if (quantized != settled) {
+                changes++;
+                settled = quantized;
+            }
+        }
+        assertEquals(0, changes);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.arduinobluetoothcontroller.control;
+
+import com.example.arduinobluetoothcontroller.time.ManualClock;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JointJogTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final List<Integer> angles = new ArrayList<>();
+
+    @Test
+    public void holdingAcceleratesAndReleaseStops() {
+        JointJog jog = new JointJog(0, 180, 90, clock, angles::add);
+
+        jog.press(1);
+        jog.tick();
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(500));
+        jog.tick();
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(1000));
+        jog.tick();
+        jog.release(1);
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(1000));
+        jog.tick();
+
+        assertEquals(Arrays.asList(91, 101, 131), angles);
+        assertFalse(jog.isHeld());
+    }
+
+    @Test
+    public void tickRateDoesNotChangeHowFarTheJointTravels() {
+        assertEquals(121, holdFor(2600, 25));
+        assertEquals(121, holdFor(2600, 200));
+        assertEquals(holdFor(1730, 33), holdFor(1730, 190));
+    }
+
+    private int holdFor(long holdMillis, long periodMillis) {
+        ManualClock jogClock = new ManualClock();
+        JointJog jog = new JointJog(-1000, 1000, 0, jogClock, angle -> { });
+        jog.press(1);
+        for (long elapsed = 0; elapsed < holdMillis; ) {
+            long step = Math.min(periodMillis, holdMillis - elapsed);
+            jogClock.advance(TimeUnit.MILLISECONDS.toNanos(step));
+            elapsed += step;
+            jog.tick();
+        }
+        return jog.getAngle();
+    }
+
+    @Test
+    public void angleIsClampedAndUnchangedStepsAreNotReported() {
+        JointJog jog = new JointJog(0, 180, 1, clock, angles::add);
+
+        jog.press(-1);
+        jog.tick();
+        jog.tick();
+
+        assertEquals(Arrays.asList(0), angles);
+        assertEquals(0, jog.getAngle());
+    }
+}
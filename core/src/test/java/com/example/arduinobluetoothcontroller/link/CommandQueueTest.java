@@ -0,0 +1,105 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.ManualClock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CommandQueueTest {
+
+    private final CommandQueue queue = new CommandQueue();
+    private final CommandQueue.Command command = new CommandQueue.Command();
+
+    @Test
+    public void newerValueReplacesUnsentOneInPlace() {
+        queue.offerDrive(100, 90);
+        queue.offerArm(1, 40);
+        queue.offerDrive(120, 80);
+        queue.offerDrive(140, 70);
+
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getSupersededCount());
+        assertEquals(2, queue.getSupersededCount(CommandQueue.CHANNEL_DRIVE));
+
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.Command.TYPE_ARM, command.getType());
+        assertEquals(1, command.getFirst());
+
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.Command.TYPE_DRIVE, command.getType());
+        assertEquals(140, command.getFirst());
+        assertEquals(70, command.getSecond());
+        assertFalse(queue.poll(command));
+    }
+
+    @Test
+    public void rawCommandsKeepOrderAndDropOldestWhenFull() {
+        queue.offerRaw("<PING>");
+        queue.offerGripper(true);
+        for (int i = 0; i < 20; i++) {
+            queue.offerRaw("<N:" + i + ">");
+        }
+
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.Command.TYPE_GRIPPER, command.getType());
+        assertTrue(queue.poll(command));
+        assertEquals("<N:4>", command.getRaw());
+        assertEquals(5, queue.getDroppedRawCount());
+    }
+
+    @Test
+    public void urgentStopOvertakesStreamingAndDiscreteTraffic() {
+        queue.offerDrive(200, 90);
+        queue.offerArm(0, 10);
+        queue.offerGripper(false);
+        queue.offerDrive(0, 90);
+
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.LANE_URGENT, command.getLane());
+        assertEquals(0, command.getFirst());
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.Command.TYPE_ARM, command.getType());
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.Command.TYPE_GRIPPER, command.getType());
+        assertFalse(queue.poll(command));
+
+        assertEquals(1, queue.getDequeuedCount(CommandQueue.LANE_URGENT));
+        assertEquals(2, queue.getDequeuedCount(CommandQueue.LANE_DISCRETE));
+        assertTrue(queue.getMaxWaitNanos(CommandQueue.LANE_DISCRETE) >= 0);
+    }
+
+    @Test
+    public void streamingDriveWaitsBehindDiscreteCommands() {
+        queue.offerDrive(150, 90);
+        queue.offerRaw("<PING>");
+
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.Command.TYPE_RAW, command.getType());
+        assertTrue(queue.poll(command));
+        assertEquals(CommandQueue.LANE_STREAMING, command.getLane());
+    }
+
+    @Test
+    public void waitTimesAreMeasuredOnTheQueueClock() {
+        ManualClock clock = new ManualClock();
+        CommandQueue timed = new CommandQueue(clock);
+        timed.offerArm(0, 10);
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(30));
+        timed.offerArm(1, 20);
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertTrue(timed.poll(command));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(40), command.getWaitNanos());
+        assertTrue(timed.poll(command));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), command.getWaitNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(40),
+                timed.getMaxWaitNanos(CommandQueue.LANE_DISCRETE));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(25),
+                timed.getMeanWaitNanos(CommandQueue.LANE_DISCRETE));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.ManualClock;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class CommandWriterTest {
+
+    @Test
+    public void framesReadyTogetherShareOneFlush() throws Exception {
+        CommandQueue queue = new CommandQueue();
+        CountingStream stream = new CountingStream();
+        CommandWriter writer = new CommandWriter(queue, exception -> {
+        });
+        writer.setBatchWindowNanos(50_000_000L);
+
+        queue.offerArm(0, 10);
+        queue.offerArm(1, 20);
+        queue.offerDrive(100, 90);
+        Thread thread = new Thread(() -> writer.run(stream));
+        thread.start();
+        Thread.sleep(5);
+        queue.offerGripper(true);
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (writer.getFlushCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        thread.interrupt();
+        thread.join();
+
+        assertEquals(1, stream.flushes);
+        assertEquals(4, writer.getMaxFramesPerFlush());
+        assertEquals("<ARM:0:10>\n<ARM:1:20>\n<DRV:100:90>\n<GRP:1>\n",
+                stream.toString(StandardCharsets.US_ASCII.name()));
+        assertEquals(stream.size(), writer.getByteCount());
+    }
+
+    @Test
+    public void batchWindowFollowsTheQueueClock() throws Exception {
+        ManualClock clock = new ManualClock();
+        CommandQueue queue = new CommandQueue(clock);
+        CountingStream stream = new CountingStream();
+        CommandWriter writer = new CommandWriter(queue, exception -> {
+        });
+        writer.setBatchWindowNanos(TimeUnit.MILLISECONDS.toNanos(20));
+
+        queue.offerArm(0, 10);
+        Thread thread = new Thread(() -> writer.run(stream));
+        thread.start();
+        // Far longer than the window in real time, but the clock has not moved.
+        Thread.sleep(100);
+        assertEquals(0, writer.getFlushCount());
+
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(25));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (writer.getFlushCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        thread.interrupt();
+        thread.join();
+
+        assertEquals(1, writer.getFlushCount());
+        assertEquals("<ARM:0:10>\n", stream.toString(StandardCharsets.US_ASCII.name()));
+    }
+
+    private static final class CountingStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.ManualClock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CreditWindowTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final CreditWindow window = new CreditWindow(clock);
+
+    @Test
+    public void tracksGrantsAcrossCounterWrap() {
+        window.setEnabled(true);
+        assertEquals(Integer.MAX_VALUE, window.available());
+
+        window.onGrant(65530, 64);
+        assertEquals(64, window.available());
+        window.onSent(20);
+        assertEquals(44, window.available());
+        assertEquals(20, window.getInFlightBytes());
+
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(10));
+        window.onGrant(14, 60);
+        assertEquals(60, window.available());
+        assertEquals(0, window.getInFlightBytes());
+        assertEquals(0, window.getResyncCount());
+    }
+
+    @Test
+    public void idleLinkResynchronisesLostBytes() {
+        window.setEnabled(true);
+        window.onGrant(0, 64);
+        window.onSent(30);
+
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(300));
+        window.onGrant(10, 64);
+
+        assertEquals(1, window.getResyncCount());
+        assertEquals(64, window.available());
+    }
+
+    @Test
+    public void fullBufferOnFirstGrantStillHoldsOversizedFrames() throws Exception {
+        window.setEnabled(true);
+        window.onGrant(0, 0);
+
+        Thread writer = new Thread(() -> {
+            try {
+                window.awaitCredit(100);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.start();
+        writer.join(50);
+        assertTrue(writer.isAlive());
+
+        window.onGrant(0, 16);
+        writer.join(1000);
+        assertFalse(writer.isAlive());
+    }
+
+    @Test
+    public void silentFirmwareDisengagesWindow() {
+        window.setEnabled(true);
+        window.onGrant(0, 8);
+        window.onSent(8);
+        assertEquals(0, window.available());
+
+        clock.advance(TimeUnit.SECONDS.toNanos(2));
+
+        assertFalse(window.isEngaged());
+        assertEquals(Integer.MAX_VALUE, window.available());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMaxMicros());
+        assertWithin(5_000, histogram.getPercentileMicros(50));
+        assertWithin(9_900, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void bucketsCoverTheWholeRange() {
+        long previous = -1;
+        for (int bucket = 0; bucket < 544; bucket++) {
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(upper > previous);
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+            previous = upper;
+        }
+        assertEquals(543, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 16 + 1);
+    }
+}
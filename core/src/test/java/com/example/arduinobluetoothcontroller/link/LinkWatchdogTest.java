@@ -0,0 +1,52 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LinkWatchdogTest {
+
+    private final LinkWatchdog watchdog = new LinkWatchdog(100L);
+
+    @Test
+    public void silentTelemetryDegradesAndRecovers() {
+        watchdog.reset(0L, 0L);
+        watchdog.onInbound(50L);
+        assertFalse(watchdog.check(120L, 0L, false));
+
+        assertTrue(watchdog.check(151L, 0L, false));
+        assertEquals(LinkWatchdog.Reason.TELEMETRY_SILENT, watchdog.getDegradedReason());
+        assertFalse(watchdog.check(200L, 0L, false));
+
+        watchdog.onInbound(210L);
+        assertTrue(watchdog.check(220L, 0L, false));
+        assertNull(watchdog.getDegradedReason());
+        assertEquals(1, watchdog.getDegradedCount());
+    }
+
+    @Test
+    public void pendingCommandsWithoutFlushesAreAWriteStall() {
+        watchdog.reset(0L, 0L);
+        watchdog.onInbound(150L);
+        assertFalse(watchdog.check(150L, 3L, true));
+
+        watchdog.onInbound(260L);
+        assertTrue(watchdog.check(260L, 3L, true));
+        assertEquals(LinkWatchdog.Reason.WRITE_STALLED, watchdog.getDegradedReason());
+
+        assertTrue(watchdog.check(270L, 4L, true));
+        assertFalse(watchdog.isDegraded());
+    }
+
+    @Test
+    public void zeroTimeoutDisablesChecks() {
+        watchdog.setTimeoutNanos(0L);
+        watchdog.reset(0L, 0L);
+
+        assertFalse(watchdog.check(10_000L, 0L, true));
+        assertFalse(watchdog.isDegraded());
+    }
+}
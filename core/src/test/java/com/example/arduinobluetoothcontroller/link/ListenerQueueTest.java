@@ -0,0 +1,79 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ListenerQueueTest {
+
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private final List<Integer> delivered = new ArrayList<>();
+
+    @Test
+    public void dropOldestKeepsNewestEventsInOrder() {
+        ListenerQueue<Integer> queue = newQueue(2, ListenerQueue.OverflowPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        runTasks();
+
+        assertEquals(Arrays.asList(3, 4), delivered);
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(2, queue.getDeliveredCount());
+    }
+
+    @Test
+    public void conflateDeliversOnlyLatest() {
+        ListenerQueue<Integer> queue = newQueue(8, ListenerQueue.OverflowPolicy.CONFLATE);
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+        runTasks();
+        queue.offer(4);
+        runTasks();
+
+        assertEquals(Arrays.asList(3, 4), delivered);
+        assertEquals(2, queue.getDroppedCount());
+    }
+
+    @Test
+    public void blockWaitsForRoomAndCloseReleasesProducer() throws Exception {
+        ListenerQueue<Integer> queue = newQueue(1, ListenerQueue.OverflowPolicy.BLOCK);
+        queue.offer(1);
+        CountDownLatch offered = new CountDownLatch(1);
+        boolean[] result = new boolean[1];
+        Thread producer = new Thread(() -> {
+            result[0] = queue.offer(2);
+            offered.countDown();
+        });
+        producer.start();
+
+        assertFalse(offered.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, queue.getBlockedCount());
+        queue.close();
+        assertTrue(offered.await(2, TimeUnit.SECONDS));
+        assertFalse(result[0]);
+        runTasks();
+        assertTrue(delivered.isEmpty());
+    }
+
+    private ListenerQueue<Integer> newQueue(int capacity, ListenerQueue.OverflowPolicy policy) {
+        return new ListenerQueue<>(tasks::add, capacity, policy, delivered::add);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReconnectPolicyTest {
+
+    @Test
+    public void delaysDoubleUpToCapWithinJitter() {
+        ReconnectPolicy policy = new ReconnectPolicy(
+                100L, 1000L, 0.2d, 8, ReconnectPolicy.ResumeMode.RESUME);
+        Random random = new Random(7L);
+        long[] nominal = {100L, 200L, 400L, 800L, 1000L, 1000L};
+
+        for (int attempt = 0; attempt < nominal.length; attempt++) {
+            for (int i = 0; i < 50; i++) {
+                long delay = policy.delayNanos(attempt, random);
+                assertTrue(delay >= nominal[attempt] * 0.8d);
+                assertTrue(delay <= nominal[attempt] * 1.2d);
+            }
+        }
+    }
+
+    @Test
+    public void zeroJitterIsDeterministic() {
+        ReconnectPolicy policy = new ReconnectPolicy(
+                250L, 4000L, 0d, 3, ReconnectPolicy.ResumeMode.ZERO_DRIVE);
+
+        assertEquals(250L, policy.delayNanos(0, new Random()));
+        assertEquals(4000L, policy.delayNanos(30, new Random()));
+    }
+}
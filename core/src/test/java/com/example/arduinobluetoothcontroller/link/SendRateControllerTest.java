@@ -0,0 +1,73 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.ManualClock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class SendRateControllerTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long FAST_WRITE = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final ManualClock clock = new ManualClock();
+    private final CommandQueue queue = new CommandQueue();
+    private final SendRateController controller = new SendRateController(
+            clock, queue, null,
+            new SendRateController.Stream(4d, 14d, 12d),
+            new SendRateController.Stream(5d, 40d, 20d),
+            WINDOW,
+            TimeUnit.MILLISECONDS.toNanos(30));
+
+    @Test
+    public void healthyLinkProbesUpToMaximum() {
+        for (int i = 0; i < 3; i++) {
+            window(FAST_WRITE);
+        }
+
+        assertEquals(14d, controller.getDrive().getRateHz(), 1e-9);
+        assertEquals(23d, controller.getArm().getRateHz(), 1e-9);
+        assertEquals(SendRateController.Reason.PROBING, controller.getReason());
+        assertEquals(240d, controller.getThroughputBytesPerSecond(), 1e-6);
+    }
+
+    @Test
+    public void blockedWriteHalvesRatesDownToMinimum() {
+        window(TimeUnit.MILLISECONDS.toNanos(45));
+        assertEquals(6d, controller.getDrive().getRateHz(), 1e-9);
+        assertEquals(SendRateController.Reason.WRITE_STALL, controller.getReason());
+
+        window(TimeUnit.MILLISECONDS.toNanos(45));
+        assertEquals(4d, controller.getDrive().getRateHz(), 1e-9);
+        assertEquals(5d, controller.getArm().getRateHz(), 1e-9);
+    }
+
+    @Test
+    public void supersededDriveCommandsCountAsBacklog() {
+        queue.offerDrive(100, 90);
+        queue.offerDrive(110, 90);
+
+        window(FAST_WRITE);
+
+        assertEquals(SendRateController.Reason.QUEUE_BACKLOG, controller.getReason());
+        assertEquals(6d, controller.getDrive().getRateHz(), 1e-9);
+    }
+
+    @Test
+    public void disabledControllerHoldsInitialRates() {
+        controller.setEnabled(false);
+        window(TimeUnit.MILLISECONDS.toNanos(45));
+
+        assertEquals(12d, controller.getDrive().getRateHz(), 1e-9);
+        assertEquals(SendRateController.Reason.FIXED, controller.getReason());
+    }
+
+    private void window(long writeNanos) {
+        controller.onFlush(2, 60, writeNanos);
+        clock.advance(WINDOW);
+        controller.onFlush(2, 60, writeNanos);
+    }
+}
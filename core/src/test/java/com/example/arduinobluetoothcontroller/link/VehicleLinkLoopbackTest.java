@@ -0,0 +1,131 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.transport.LoopbackTransport;
+import com.example.arduinobluetoothcontroller.transport.Transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VehicleLinkLoopbackTest {
+
+    private final BlockingQueue<String> packets = new ArrayBlockingQueue<>(16);
+    private final CountDownLatch connectedLatch = new CountDownLatch(1);
+
+    private VehicleLink controller;
+    private LoopbackTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        controller = new VehicleLink(Runnable::run);
+        controller.addDataListener(packets::add);
+        controller.addConnectionListener(new VehicleLink.ConnectionListener() {
+            @Override
+            public void onConnected(Transport transport) {
+                connectedLatch.countDown();
+            }
+
+            @Override
+            public void onDisconnected() {
+            }
+
+            @Override
+            public void onError(String message) {
+            }
+
+            @Override
+            public void onLinkDegraded(LinkWatchdog.Reason reason) {
+            }
+
+            @Override
+            public void onLinkRecovered() {
+            }
+
+            @Override
+            public void onReconnecting(int attempt, long delayMillis) {
+            }
+        });
+        transport = new LoopbackTransport();
+        controller.connect(transport);
+        assertTrue(connectedLatch.await(2, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        controller.disconnect();
+    }
+
+    @Test
+    public void sendCommand_reachesPeer() throws Exception {
+        controller.sendCommand("<DRV:120:90>");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                transport.getPeerInputStream(), StandardCharsets.US_ASCII));
+        assertEquals("<DRV:120:90>", reader.readLine());
+    }
+
+    @Test
+    public void peerLines_reachDataListener() throws Exception {
+        OutputStream peer = transport.getPeerOutputStream();
+        peer.write("<STAT:1:2:".getBytes(StandardCharsets.US_ASCII));
+        peer.write("7.4>\r\n<LOG:ok>\n".getBytes(StandardCharsets.US_ASCII));
+        peer.flush();
+
+        assertEquals("<STAT:1:2:7.4>", packets.poll(2, TimeUnit.SECONDS));
+        assertEquals("<LOG:ok>", packets.poll(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stalledQueuedListener_doesNotHoldUpReader() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService slow = Executors.newSingleThreadExecutor();
+        try {
+            controller.addDataListener(packet -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }, slow, 1, ListenerQueue.OverflowPolicy.DROP_OLDEST);
+
+            OutputStream peer = transport.getPeerOutputStream();
+            peer.write("<LOG:0>\n".getBytes(StandardCharsets.US_ASCII));
+            peer.flush();
+            assertTrue(entered.await(2, TimeUnit.SECONDS));
+            for (int i = 1; i < 5; i++) {
+                peer.write(("<LOG:" + i + ">\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            peer.flush();
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals("<LOG:" + i + ">", packets.poll(2, TimeUnit.SECONDS));
+            }
+            // One packet is stuck in the listener and one waits in the queue; the rest were
+            // dropped without the reader waiting.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (controller.getListenerDroppedCount() < 3) {
+                assertTrue("Timed out", System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+            assertEquals(3, controller.getListenerDroppedCount());
+        } finally {
+            release.countDown();
+            slow.shutdown();
+        }
+    }
+}
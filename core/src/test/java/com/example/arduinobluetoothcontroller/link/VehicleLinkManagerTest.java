@@ -0,0 +1,79 @@
+package com.example.arduinobluetoothcontroller.link;
+
+import com.example.arduinobluetoothcontroller.time.Clock;
+import com.example.arduinobluetoothcontroller.transport.LoopbackTransport;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VehicleLinkManagerTest {
+
+    private final VehicleLinkManager<VehicleLink> manager = new VehicleLinkManager<>(
+            2, (address, executors) -> new VehicleLink(Clock.SYSTEM, Runnable::run, executors));
+
+    @After
+    public void tearDown() {
+        manager.disconnectAll();
+    }
+
+    @Test
+    public void groupStopReachesOnlyGroupMembers() throws Exception {
+        LoopbackTransport car = connect("car");
+        LoopbackTransport arm = connect("arm");
+        manager.addToGroup("drive", "car");
+
+        manager.stopGroup("drive");
+        manager.get("arm").sendCommand("<LOG:still here>");
+
+        assertEquals("<DRV:0:90>", readLine(car));
+        assertEquals("<LOG:still here>", readLine(arm));
+        assertEquals(1, manager.getMetrics("car").getFramesWritten());
+        assertEquals(2, manager.getMetrics().size());
+    }
+
+    @Test
+    public void linksShareBoundedExecutors() throws Exception {
+        connect("a");
+        connect("b");
+
+        try {
+            manager.getOrCreate("c");
+            fail("Expected the link limit to be enforced.");
+        } catch (IllegalStateException expected) {
+            // Two links at most.
+        }
+        // Each connected link holds a reader and a writer thread from the shared pool.
+        assertTrue(manager.getExecutors().getPoolSize() <= 8);
+
+        manager.remove("a");
+        assertFalse(manager.getAddresses().contains("a"));
+        manager.getOrCreate("c");
+    }
+
+    private LoopbackTransport connect(String address) throws Exception {
+        VehicleLink link = manager.getOrCreate(address);
+        LoopbackTransport transport = new LoopbackTransport(address, 4096);
+        link.connect(transport);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!link.isConnected()) {
+            assertTrue("Timed out", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+        return transport;
+    }
+
+    private static String readLine(LoopbackTransport transport) throws Exception {
+        return new BufferedReader(new InputStreamReader(
+                transport.getPeerInputStream(), StandardCharsets.US_ASCII)).readLine();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CommandEncoderTest {
+
+    private final byte[] buffer = new byte[CommandEncoder.MAX_FRAME_LENGTH];
+
+    @Test
+    public void text_matchesLegacyFormat() {
+        CommandEncoder encoder = new TextCommandEncoder();
+        int[][] samples = {{0, 90}, {-255, 45}, {255, 135}, {7, 100}};
+        for (int[] sample : samples) {
+            int length = encoder.encodeDrive(
+                    buffer, 0, CommandEncoder.NO_SEQUENCE, sample[0], sample[1]);
+            String expected = String.format(Locale.US, "<DRV:%d:%d>\n", sample[0], sample[1]);
+            assertEquals(expected, new String(buffer, 0, length, StandardCharsets.US_ASCII));
+        }
+
+        int length = encoder.encodeArm(buffer, 0, CommandEncoder.NO_SEQUENCE, 2, 180);
+        assertEquals("<ARM:2:180>\n", new String(buffer, 0, length, StandardCharsets.US_ASCII));
+        length = encoder.encodeGripper(buffer, 0, CommandEncoder.NO_SEQUENCE, true);
+        assertEquals("<GRP:1>\n", new String(buffer, 0, length, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void binary_driveFrameLayout() {
+        int length = new BinaryCommandEncoder().encodeDrive(
+                buffer, 0, CommandEncoder.NO_SEQUENCE, -255, 90);
+
+        assertEquals(6, length);
+        byte[] expectedHead = {BinaryCommandEncoder.SYNC, BinaryCommandEncoder.TYPE_DRIVE,
+                (byte) 0xFF, (byte) 0x01, (byte) 90};
+        byte[] head = new byte[5];
+        System.arraycopy(buffer, 0, head, 0, 5);
+        assertArrayEquals(expectedHead, head);
+        assertEquals(Crc8.compute(buffer, 1, 4), buffer[5]);
+    }
+
+    @Test
+    public void sequencedFramesCarryTheSequence() {
+        int length = new TextCommandEncoder().encodeArm(buffer, 0, 17, 1, 45);
+        assertEquals("<ARM:1:45:17>\n", new String(buffer, 0, length, StandardCharsets.US_ASCII));
+
+        length = new BinaryCommandEncoder().encodeGripper(buffer, 0, 200, true);
+        assertEquals(5, length);
+        assertEquals((byte) (BinaryCommandEncoder.TYPE_GRIPPER | BinaryCommandEncoder.FLAG_SEQUENCED),
+                buffer[1]);
+        assertEquals((byte) 200, buffer[2]);
+        assertEquals(Crc8.compute(buffer, 1, 3), buffer[4]);
+    }
+
+    @Test
+    public void armMoveFitsTheFrameAtItsLongest() {
+        int length = new TextCommandEncoder().encodeArmMove(
+                buffer, 0, 255, 3, 180, 65535, MotionProfile.S_CURVE.getCode());
+        assertEquals("<MOV:3:180:65535:2:255>\n",
+                new String(buffer, 0, length, StandardCharsets.US_ASCII));
+
+        length = new BinaryCommandEncoder().encodeArmMove(
+                buffer, 0, CommandEncoder.NO_SEQUENCE, 1, 45, 800, 1);
+        assertEquals(8, length);
+        assertEquals(BinaryCommandEncoder.TYPE_ARM_MOVE, buffer[1]);
+        assertEquals(800, ((buffer[4] & 0xFF) << 8) | (buffer[5] & 0xFF));
+        assertEquals(Crc8.compute(buffer, 1, 6), buffer[7]);
+    }
+
+    @Test
+    public void rawLineIsUtf8LikeTheOversizedPath() {
+        String command = "LOG:caf\u00e9 \u2192 \ud83d\ude97 \ud800";
+        int length = TextCommandEncoder.encodeLine(buffer, 0, command);
+        byte[] encoded = new byte[length];
+        System.arraycopy(buffer, 0, encoded, 0, length);
+        assertArrayEquals((command + "\n").getBytes(StandardCharsets.UTF_8), encoded);
+
+        assertEquals(-1, TextCommandEncoder.encodeLine(new byte[length - 1], 0, command));
+    }
+
+    @Test
+    public void crc8_knownCheckValue() {
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+        assertEquals((byte) 0xF4, Crc8.compute(data, 0, data.length));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.arduinobluetoothcontroller.protocol;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PacketParserTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final PacketParser parser = new PacketParser(new PacketParser.Listener() {
+        @Override
+        public void onFrame(CharSequence frame) {
+        }
+
+        @Override
+        public void onStat(int pwm, float tilt, int batteryMillivolts) {
+            events.add("stat " + pwm + " " + tilt + " " + batteryMillivolts);
+        }
+
+        @Override
+        public void onLog(CharSequence message) {
+            events.add("log " + message);
+        }
+
+        @Override
+        public void onAck(int sequence) {
+            events.add("ack " + sequence);
+        }
+
+        @Override
+        public void onCredit(int received, int free) {
+            events.add("credit " + received + " " + free);
+        }
+
+        @Override
+        public void onOther(CharSequence frame) {
+            events.add("other " + frame);
+        }
+    }, 64);
+
+    @Test
+    public void decodesFramesSplitAcrossReads() {
+        feed("<STAT:12");
+        feed("0:-3.5:7.42V>\r\n  <LOG:arm ready>\n");
+        feed("<STAT:0:2>\n<ACK:42>\n");
+
+        assertEquals("stat 120 -3.5 7420", events.get(0));
+        assertEquals("log arm ready", events.get(1));
+        assertEquals("stat 0 2.0 0", events.get(2));
+        assertEquals("ack 42", events.get(3));
+    }
+
+    @Test
+    public void decodesCreditsFromStatusAndCreditFrames() {
+        feed("<STAT:100:1.5:7.2V:65530:48>\n<CRD:12:64>\n<CRD:12>\n");
+
+        assertEquals("stat 100 1.5 7200", events.get(0));
+        assertEquals("credit 65530 48", events.get(1));
+        assertEquals("credit 12 64", events.get(2));
+        assertEquals("other <CRD:12>", events.get(3));
+        assertEquals(4, events.size());
+    }
+
+    @Test
+    public void malformedStatFallsBackToOther() {
+        feed("<STAT:x:1:2>\nhello\n\n");
+
+        assertEquals("other <STAT:x:1:2>", events.get(0));
+        assertEquals("other hello", events.get(1));
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    public void oversizedFrameIsDroppedAndParserResynchronises() {
+        StringBuilder garbage = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            garbage.append('x');
+        }
+        feed(garbage + "\n<LOG:ok>\n");
+
+        assertEquals(1, events.size());
+        assertEquals("log ok", events.get(0));
+        assertTrue(parser.getOverflowCount() > 0);
+    }
+
+    @Test
+    public void wrapsAroundRingManyTimes() {
+        for (int i = 0; i < 1000; i++) {
+            feed("<STAT:" + i + ":1:5>\n");
+        }
+
+        assertEquals(1000, events.size());
+        assertEquals("stat 999 1.0 5000", events.get(999));
+    }
+
+    private void feed(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        parser.feed(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.arduinobluetoothcontroller.telemetry;
+
+import com.example.arduinobluetoothcontroller.time.ManualClock;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TelemetryConflatorTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final List<String> delivered = new ArrayList<>();
+    private final TelemetryConflator.Sink sink = new TelemetryConflator.Sink() {
+        @Override
+        public void onStat(int pwm, float tilt, int batteryMillivolts) {
+            delivered.add("stat " + pwm);
+        }
+
+        @Override
+        public void onLogs(String[] lines, int count) {
+            delivered.add("logs " + String.join(",", Arrays.copyOf(lines, count)));
+        }
+    };
+    private int frameRequests;
+    private final TelemetryConflator conflator =
+            new TelemetryConflator(clock, 2, () -> frameRequests++);
+
+    @Test
+    public void burstIsConflatedIntoOneFrame() {
+        conflator.postStat(10, 0f, 7400);
+        clock.advance(1_000_000L);
+        conflator.postStat(20, 0f, 7400);
+        conflator.postLog("a");
+        conflator.postLog("b");
+        conflator.postLog("c");
+        conflator.postStat(30, 0f, 7400);
+        clock.advance(15_000_000L);
+
+        conflator.dispatch(sink);
+        conflator.dispatch(sink);
+
+        assertEquals(1, frameRequests);
+        assertEquals(Arrays.asList("stat 30", "logs a,b"), delivered);
+        assertEquals(2, conflator.getStatsConflated());
+        assertEquals(1, conflator.getLogsDropped());
+        assertEquals(1, conflator.getFramesDispatched());
+        assertEquals(16_000_000L, conflator.getMaxLagNanos());
+    }
+
+    @Test
+    public void postAfterDispatchRequestsAnotherFrame() {
+        conflator.postLog("first");
+        conflator.dispatch(sink);
+        conflator.postLog("second");
+        conflator.dispatch(sink);
+
+        assertEquals(2, frameRequests);
+        assertEquals(Arrays.asList("logs first", "logs second"), delivered);
+        assertEquals(0, conflator.getStatsConflated());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.arduinobluetoothcontroller.telemetry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TelemetryHistoryTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void rawRingKeepsNewestSamples() {
+        TelemetryHistory history = new TelemetryHistory(4, 8, SECOND);
+        for (int i = 0; i < 10; i++) {
+            history.record(i * 100_000_000L, i, i / 2f, 7000 + i);
+        }
+
+        List<Integer> pwm = new ArrayList<>();
+        int visited = history.forEachSample(0, (timestamp, value, tilt, battery) -> pwm.add(value));
+
+        assertEquals(4, visited);
+        assertEquals(Arrays.asList(6, 7, 8, 9), pwm);
+        assertEquals(2, history.forEachSample(800_000_000L, (t, p, tilt, b) -> {
+        }));
+    }
+
+    @Test
+    public void bucketsOutliveRawSamples() {
+        TelemetryHistory history = new TelemetryHistory(4, 8, SECOND);
+        for (int i = 0; i < 30; i++) {
+            // Ten samples per second for three seconds, with a brown-out in the second second.
+            int battery = i >= 10 && i < 20 && i % 2 == 0 ? 5200 : 7400;
+            history.record(i * 100_000_000L, 100 + i, 0f, battery);
+        }
+
+        assertEquals(3, history.getBucketCount());
+        TelemetryHistory.Bucket summary =
+                history.summarizeSince(SECOND, new TelemetryHistory.Bucket());
+        assertEquals(20, summary.getCount());
+        assertEquals(5200, summary.getBatteryMinMillivolts());
+        assertEquals(7400, summary.getBatteryMaxMillivolts());
+        assertEquals(110, summary.getPwmMin());
+        assertEquals(129, summary.getPwmMax());
+
+        List<Integer> minima = new ArrayList<>();
+        history.forEachBucket(0, bucket -> minima.add(bucket.getBatteryMinMillivolts()));
+        assertEquals(Arrays.asList(7400, 5200, 7400), minima);
+    }
+}
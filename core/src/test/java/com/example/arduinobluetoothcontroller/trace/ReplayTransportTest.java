@@ -0,0 +1,125 @@
+package com.example.arduinobluetoothcontroller.trace;
+
+import com.example.arduinobluetoothcontroller.link.LinkWatchdog;
+import com.example.arduinobluetoothcontroller.link.VehicleLink;
+import com.example.arduinobluetoothcontroller.transport.Transport;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayTransportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayDrivesReaderPathAndDisconnectsAtEnd() throws Exception {
+        File original = recordSession(folder.newFolder("original"), 200, 0);
+
+        List<String> packets = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch disconnected = new CountDownLatch(1);
+        VehicleLink controller = newController(packets, disconnected);
+        SessionRecorder rerecorder = new SessionRecorder(folder.newFolder("replayed"));
+        controller.setSessionRecorder(rerecorder);
+
+        ReplayTransport replay = new ReplayTransport(original, ReplayTransport.AS_FAST_AS_POSSIBLE);
+        controller.connect(replay);
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+
+        assertEquals(200, packets.size());
+        assertEquals("<STAT:0:1.5:7.4V>", packets.get(0));
+        assertEquals("<STAT:199:1.5:7.4V>", packets.get(199));
+        assertEquals(200, replay.getInboundRecordCount());
+        assertEquals(200, countRecords(rerecorder.getSessionDirectory(),
+                SessionRecorder.DIRECTION_INBOUND));
+        assertEquals(TraceDiff.IDENTICAL, TraceDiff.firstMismatch(
+                original, rerecorder.getSessionDirectory(), SessionRecorder.DIRECTION_INBOUND));
+    }
+
+    @Test
+    public void originalSpeedKeepsRecordedSpacing() throws Exception {
+        File original = recordSession(folder.newFolder("original"), 3, 30);
+
+        List<String> packets = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch disconnected = new CountDownLatch(1);
+        VehicleLink controller = newController(packets, disconnected);
+
+        long start = System.nanoTime();
+        controller.connect(new ReplayTransport(original, ReplayTransport.ORIGINAL_SPEED));
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+
+        assertEquals(3, packets.size());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(55));
+    }
+
+    private static int countRecords(File session, byte direction) throws Exception {
+        int count = 0;
+        try (SessionTraceReader reader = new SessionTraceReader(session)) {
+            SessionTraceReader.Record record = new SessionTraceReader.Record();
+            while (reader.next(record)) {
+                if (record.getDirection() == direction) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private File recordSession(File root, int count, long spacingMillis) throws Exception {
+        SessionRecorder recorder = new SessionRecorder(root);
+        recorder.open();
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && spacingMillis > 0) {
+                Thread.sleep(spacingMillis);
+            }
+            recorder.record(SessionRecorder.DIRECTION_INBOUND, "<STAT:" + i + ":1.5:7.4V>");
+            byte[] command = "<DRV:0:90>\n".getBytes();
+            recorder.record(SessionRecorder.DIRECTION_OUTBOUND, command, 0, command.length);
+        }
+        recorder.close();
+        return recorder.getSessionDirectory();
+    }
+
+    private static VehicleLink newController(List<String> packets, CountDownLatch disconnected) {
+        VehicleLink controller = new VehicleLink(Runnable::run);
+        controller.addDataListener(packets::add);
+        controller.addConnectionListener(new VehicleLink.ConnectionListener() {
+            @Override
+            public void onConnected(Transport transport) {
+            }
+
+            @Override
+            public void onDisconnected() {
+                disconnected.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+            }
+
+            @Override
+            public void onLinkDegraded(LinkWatchdog.Reason reason) {
+            }
+
+            @Override
+            public void onLinkRecovered() {
+            }
+
+            @Override
+            public void onReconnecting(int attempt, long delayMillis) {
+            }
+        });
+        return controller;
+    }
+}
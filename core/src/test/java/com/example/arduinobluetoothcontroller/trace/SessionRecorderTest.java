@@ -0,0 +1,116 @@
+package com.example.arduinobluetoothcontroller.trace;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SessionRecorderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsRollAcrossSegmentsAndReadBackInOrder() throws Exception {
+        SessionRecorder recorder = new SessionRecorder(folder.getRoot(), 256, 4096, 4);
+        recorder.open();
+        byte[] frame = "<DRV:100:90>\n".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < 40; i++) {
+            recorder.record(SessionRecorder.DIRECTION_OUTBOUND, frame, 0, frame.length);
+            recorder.record(SessionRecorder.DIRECTION_INBOUND, "STAT:" + i);
+        }
+        File session = recorder.getSessionDirectory();
+        recorder.close();
+
+        assertTrue(new File(session, "00002.seg").isFile());
+        try (SessionTraceReader reader = new SessionTraceReader(session)) {
+            SessionTraceReader.Record record = new SessionTraceReader.Record();
+            long previous = Long.MIN_VALUE;
+            for (int i = 0; i < 40; i++) {
+                assertTrue(reader.next(record));
+                assertEquals(SessionRecorder.DIRECTION_OUTBOUND, record.getDirection());
+                assertEquals("<DRV:100:90>\n", text(record));
+                assertTrue(record.getTimestampNanos() >= previous);
+                previous = record.getTimestampNanos();
+
+                assertTrue(reader.next(record));
+                assertEquals(SessionRecorder.DIRECTION_INBOUND, record.getDirection());
+                assertEquals("STAT:" + i, text(record));
+            }
+            assertFalse(reader.next(record));
+        }
+    }
+
+    @Test
+    public void seekSkipsToFirstRecordAtOrAfterTimestamp() throws Exception {
+        SessionRecorder recorder = new SessionRecorder(folder.getRoot(), 256, 4096, 4);
+        recorder.open();
+        for (int i = 0; i < 20; i++) {
+            recorder.record(SessionRecorder.DIRECTION_INBOUND, "early" + i);
+        }
+        Thread.sleep(2);
+        long middle = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            recorder.record(SessionRecorder.DIRECTION_INBOUND, "late" + i);
+        }
+        File session = recorder.getSessionDirectory();
+        recorder.close();
+
+        try (SessionTraceReader reader = new SessionTraceReader(session)) {
+            SessionTraceReader.Record record = new SessionTraceReader.Record();
+            reader.seek(middle);
+            assertTrue(reader.next(record));
+            assertEquals("late0", text(record));
+        }
+    }
+
+    @Test
+    public void interruptedCloseStillDrainsEveryRecordAndSessionsNeverCollide()
+            throws Exception {
+        SessionRecorder recorder = new SessionRecorder(folder.getRoot(), 64 * 1024, 64 * 1024, 8);
+        File previous = null;
+        for (int session = 0; session < 5; session++) {
+            recorder.open();
+            File directory = recorder.getSessionDirectory();
+            assertFalse(directory.equals(previous));
+            previous = directory;
+            for (int i = 0; i < 200; i++) {
+                recorder.record(SessionRecorder.DIRECTION_INBOUND, "STAT:" + i);
+            }
+            // As when the reader thread closes the recorder while being stopped.
+            Thread.currentThread().interrupt();
+            recorder.close();
+            assertTrue(Thread.interrupted());
+
+            int count = 0;
+            try (SessionTraceReader reader = new SessionTraceReader(directory)) {
+                SessionTraceReader.Record record = new SessionTraceReader.Record();
+                while (reader.next(record)) {
+                    count++;
+                }
+            }
+            assertEquals(200, count);
+        }
+    }
+
+    @Test
+    public void oldSessionsArePruned() throws Exception {
+        SessionRecorder recorder = new SessionRecorder(folder.getRoot(), 256, 4096, 2);
+        for (int i = 0; i < 4; i++) {
+            recorder.open();
+            recorder.close();
+            Thread.sleep(2);
+        }
+        assertEquals(2, folder.getRoot().listFiles().length);
+    }
+
+    private static String text(SessionTraceReader.Record record) {
+        return new String(record.getPayload(), 0, record.getLength(), StandardCharsets.US_ASCII);
+    }
+}
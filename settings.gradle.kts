@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "ArduinoBluetoothController"
 include(":app")
+include(":core")
+include(":benchmarks")
+include(":simulator")
  
\ No newline at end of file
@@ -0,0 +1,17 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.example.arduinobluetoothcontroller.simulator.SimulatorMain")
+}
+
+dependencies {
+    implementation(project(":core"))
+    testImplementation(libs.junit)
+}
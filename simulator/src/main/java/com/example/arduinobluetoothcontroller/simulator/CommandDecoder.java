@@ -0,0 +1,214 @@
+package com.example.arduinobluetoothcontroller.simulator;
+
+import com.example.arduinobluetoothcontroller.protocol.BinaryCommandEncoder;
+import com.example.arduinobluetoothcontroller.protocol.CommandEncoder;
+import com.example.arduinobluetoothcontroller.protocol.Crc8;
+
+/**
+ * Byte-at-a-time decoder for what the firmware receives: text frames such as
+ * {@code <DRV:-120:90>}, {@code <ARM:1:45:17>} or {@code <MOV:1:45:800:2>}, and binary frames as written by
+ * {@link BinaryCommandEncoder}. Anything malformed is reported once and skipped up to the next
+ * frame start.
+ */
+final class CommandDecoder {
+
+    interface Listener {
+        void onDrive(int sequence, int speed, int angle);
+
+        void onArm(int sequence, int joint, int angle);
+
+        void onArmMove(int sequence, int joint, int angle, int durationMillis, int profile);
+
+        void onGripper(int sequence, boolean grab);
+
+        void onCorrupt();
+    }
+
+    private static final int MAX_TEXT_LENGTH = 32;
+    private static final int MAX_FIELDS = 5;
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_TEXT = 1;
+    private static final int STATE_BINARY = 2;
+
+    private final Listener listener;
+    private final char[] text = new char[MAX_TEXT_LENGTH];
+    private final int[] fields = new int[MAX_FIELDS];
+    private final byte[] binary = new byte[8];
+
+    private int state = STATE_IDLE;
+    private int length;
+    private int expected;
+
+    CommandDecoder(Listener listener) {
+        this.listener = listener;
+    }
+
+    void accept(byte value) {
+        switch (state) {
+            case STATE_TEXT:
+                acceptText(value);
+                break;
+            case STATE_BINARY:
+                acceptBinary(value);
+                break;
+            default:
+                startFrame(value);
+                break;
+        }
+    }
+
+    private void startFrame(byte value) {
+        if (value == '<') {
+            state = STATE_TEXT;
+            length = 0;
+        } else if (value == BinaryCommandEncoder.SYNC) {
+            state = STATE_BINARY;
+            length = 0;
+            expected = 0;
+        } else if (value != '\n' && value != '\r') {
+            listener.onCorrupt();
+        }
+    }
+
+    private void acceptText(byte value) {
+        if (value == '>') {
+            state = STATE_IDLE;
+            decodeText();
+        } else if (value == '<' || value == '\n' || length == MAX_TEXT_LENGTH) {
+            listener.onCorrupt();
+            state = STATE_IDLE;
+            startFrame(value);
+        } else {
+            text[length++] = (char) value;
+        }
+    }
+
+    private void decodeText() {
+        if (length < 4 || text[3] != ':') {
+            listener.onCorrupt();
+            return;
+        }
+        int fieldCount = 0;
+        int position = 4;
+        while (position <= length) {
+            if (fieldCount == MAX_FIELDS) {
+                listener.onCorrupt();
+                return;
+            }
+            boolean negative = position < length && text[position] == '-';
+            if (negative) {
+                position++;
+            }
+            int start = position;
+            int value = 0;
+            while (position < length && text[position] >= '0' && text[position] <= '9') {
+                value = value * 10 + (text[position] - '0');
+                position++;
+            }
+            if (position == start || (position < length && text[position] != ':')) {
+                listener.onCorrupt();
+                return;
+            }
+            fields[fieldCount++] = negative ? -value : value;
+            position++;
+        }
+
+        String type = new String(text, 0, 3);
+        switch (type) {
+            case "DRV":
+                if (fieldCount == 2 || fieldCount == 3) {
+                    listener.onDrive(sequenceField(fieldCount, 3), fields[0], fields[1]);
+                    return;
+                }
+                break;
+            case "ARM":
+                if (fieldCount == 2 || fieldCount == 3) {
+                    listener.onArm(sequenceField(fieldCount, 3), fields[0], fields[1]);
+                    return;
+                }
+                break;
+            case "MOV":
+                if (fieldCount == 4 || fieldCount == 5) {
+                    listener.onArmMove(sequenceField(fieldCount, 5),
+                            fields[0], fields[1], fields[2], fields[3]);
+                    return;
+                }
+                break;
+            case "GRP":
+                if (fieldCount == 1 || fieldCount == 2) {
+                    listener.onGripper(sequenceField(fieldCount, 2), fields[0] != 0);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        listener.onCorrupt();
+    }
+
+    private int sequenceField(int fieldCount, int sequencedCount) {
+        return fieldCount == sequencedCount ? fields[fieldCount - 1] : CommandEncoder.NO_SEQUENCE;
+    }
+
+    private void acceptBinary(byte value) {
+        binary[length++] = value;
+        if (length == 1) {
+            int payload = payloadLength((byte) (value & ~BinaryCommandEncoder.FLAG_SEQUENCED));
+            if (payload < 0) {
+                listener.onCorrupt();
+                state = STATE_IDLE;
+                return;
+            }
+            boolean sequenced = (value & BinaryCommandEncoder.FLAG_SEQUENCED) != 0;
+            // type, [sequence], payload, crc
+            expected = 1 + (sequenced ? 1 : 0) + payload + 1;
+            return;
+        }
+        if (length < expected) {
+            return;
+        }
+        state = STATE_IDLE;
+        if (Crc8.compute(binary, 0, length - 1) != binary[length - 1]) {
+            listener.onCorrupt();
+            return;
+        }
+        byte type = binary[0];
+        boolean sequenced = (type & BinaryCommandEncoder.FLAG_SEQUENCED) != 0;
+        int sequence = sequenced ? binary[1] & 0xFF : CommandEncoder.NO_SEQUENCE;
+        int position = sequenced ? 2 : 1;
+        switch ((byte) (type & ~BinaryCommandEncoder.FLAG_SEQUENCED)) {
+            case BinaryCommandEncoder.TYPE_DRIVE:
+                listener.onDrive(sequence,
+                        (short) ((binary[position] << 8) | (binary[position + 1] & 0xFF)),
+                        binary[position + 2] & 0xFF);
+                break;
+            case BinaryCommandEncoder.TYPE_ARM:
+                listener.onArm(sequence, binary[position] & 0xFF, binary[position + 1] & 0xFF);
+                break;
+            case BinaryCommandEncoder.TYPE_ARM_MOVE:
+                listener.onArmMove(sequence, binary[position] & 0xFF, binary[position + 1] & 0xFF,
+                        ((binary[position + 2] & 0xFF) << 8) | (binary[position + 3] & 0xFF),
+                        binary[position + 4] & 0xFF);
+                break;
+            default:
+                listener.onGripper(sequence, binary[position] != 0);
+                break;
+        }
+    }
+
+    private static int payloadLength(byte type) {
+        switch (type) {
+            case BinaryCommandEncoder.TYPE_DRIVE:
+                return 3;
+            case BinaryCommandEncoder.TYPE_ARM:
+                return 2;
+            case BinaryCommandEncoder.TYPE_GRIPPER:
+                return 1;
+            case BinaryCommandEncoder.TYPE_ARM_MOVE:
+                return 5;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.arduinobluetoothcontroller.simulator;
+
+import com.example.arduinobluetoothcontroller.protocol.CommandEncoder;
+import com.example.arduinobluetoothcontroller.protocol.MotionProfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless stand-in for the vehicle firmware behind an HC-05, served on a local TCP port so a
+ * {@code TcpTransport} can connect to it. Commands pass through the uplink model (radio
+ * latency, jitter and loss, then the UART) into a bounded RX buffer that the firmware loop
+ * drains every loop period; bytes arriving at a full buffer are lost, as on the Arduino.
+ * Replies (STAT at the configured rate, ACK for sequenced commands, LOG) take the downlink
+ * model back. With credits enabled the firmware also reports how many bytes it has received and
+ * how much RX space is free, on every STAT and whenever the loop has drained half a buffer
+ * since the last report. One client is served at a time.
+ */
+public class FirmwareSimulator {
+
+    private static final int MODULE_BUFFER_SIZE = 4096;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SimulatorConfig config;
+    private final VehicleState vehicle = new VehicleState();
+
+    private volatile ServerSocket serverSocket;
+    private volatile Thread acceptThread;
+    private volatile Socket client;
+
+    // Counters are written by the simulation thread.
+    private volatile long rxOverflowBytes;
+    private volatile long framesDecoded;
+    private volatile long corruptFrames;
+    private volatile long statsSent;
+    private volatile long watchdogStops;
+    private volatile long lastCommandNanos;
+    private volatile long connectionCount;
+    private volatile LinkDirection uplink;
+    private volatile LinkDirection downlink;
+
+    public FirmwareSimulator(SimulatorConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Binds to {@code port} on the loopback interface (0 picks a free port) and starts serving.
+     */
+    public synchronized void start(int port) throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        ServerSocket server = new ServerSocket();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverSocket = server;
+        Thread thread = new Thread(this::acceptLoop, "simulator-accept");
+        thread.setDaemon(true);
+        acceptThread = thread;
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        ServerSocket server = serverSocket;
+        serverSocket = null;
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+            }
+        }
+        Thread thread = acceptThread;
+        acceptThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Drops the current client as a radio dropout would, leaving the server ready for the
+     * next connection.
+     */
+    public void disconnectClient() {
+        Socket current = client;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public int getPort() {
+        ServerSocket server = serverSocket;
+        return server != null ? server.getLocalPort() : -1;
+    }
+
+    public VehicleState getVehicle() {
+        return vehicle;
+    }
+
+    public long getRxOverflowBytes() {
+        return rxOverflowBytes;
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    public long getCorruptFrames() {
+        return corruptFrames;
+    }
+
+    public long getStatsSent() {
+        return statsSent;
+    }
+
+    /**
+     * Times the firmware watchdog stopped the motors for lack of commands.
+     */
+    public long getWatchdogStops() {
+        return watchdogStops;
+    }
+
+    public long getConnectionCount() {
+        return connectionCount;
+    }
+
+    public long getUplinkDroppedBytes() {
+        LinkDirection current = uplink;
+        return current != null ? current.getDroppedBytes() + current.getOverflowBytes() : 0L;
+    }
+
+    public int getUplinkBacklog() {
+        LinkDirection current = uplink;
+        return current != null ? current.getBacklog() : 0;
+    }
+
+    public long getDownlinkDroppedBytes() {
+        LinkDirection current = downlink;
+        return current != null ? current.getDroppedBytes() + current.getOverflowBytes() : 0L;
+    }
+
+    private void acceptLoop() {
+        ServerSocket server = serverSocket;
+        while (server != null && !server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                socket.setTcpNoDelay(true);
+                client = socket;
+                connectionCount++;
+                serve(socket);
+            } catch (IOException ignored) {
+                // Client went away or the server was stopped.
+            }
+            server = serverSocket;
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        Random random = new Random(config.getSeed());
+        LinkDirection up = new LinkDirection(config, MODULE_BUFFER_SIZE, random);
+        LinkDirection down = new LinkDirection(config, MODULE_BUFFER_SIZE, random);
+        uplink = up;
+        downlink = down;
+        vehicle.reset();
+
+        InputStream input = socket.getInputStream();
+        OutputStream output = socket.getOutputStream();
+        Thread reader = new Thread(() -> readSocket(input, up), "simulator-rx");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            simulate(up, down, output, reader);
+        } finally {
+            reader.interrupt();
+        }
+    }
+
+    private void readSocket(InputStream input, LinkDirection up) {
+        byte[] buffer = new byte[512];
+        try {
+            int size;
+            while ((size = input.read(buffer)) != -1) {
+                up.offer(buffer, 0, size, System.nanoTime());
+            }
+        } catch (IOException ignored) {
+            // Connection closed.
+        }
+    }
+
+    private void simulate(LinkDirection up, LinkDirection down, OutputStream output, Thread reader)
+            throws IOException {
+        RxBuffer rx = new RxBuffer(config.getRxBufferSize());
+        CommandDecoder decoder = new CommandDecoder(new FirmwareHandler(down));
+        OutboundBuffer out = new OutboundBuffer();
+        long loopPeriodNanos = TimeUnit.MILLISECONDS.toNanos(config.getLoopPeriodMillis());
+        long statPeriodNanos = config.getStatRateHz() > 0d
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / config.getStatRateHz())
+                : Long.MAX_VALUE;
+        long now = System.nanoTime();
+        long nextLoop = now;
+        long nextStat = now + statPeriodNanos;
+        long watchdogNanos = TimeUnit.MILLISECONDS.toNanos(config.getWatchdogMillis());
+        lastCommandNanos = now;
+        boolean credits = config.isCreditsEnabled();
+        long lastAdvertised = 0L;
+
+        emit(down, "<LOG:simulator ready>", now);
+        if (credits) {
+            emit(down, rx.formatCredit("<CRD:", ">"), now);
+        }
+        while (reader.isAlive() && serverSocket != null) {
+            now = System.nanoTime();
+            up.drain(now, rx::offer);
+            if (now - nextLoop >= 0) {
+                int size = rx.size();
+                for (int i = 0; i < size; i++) {
+                    decoder.accept(rx.take());
+                }
+                vehicle.step();
+                if (watchdogNanos > 0L && vehicle.getSpeed() != 0
+                        && now - lastCommandNanos > watchdogNanos) {
+                    vehicle.drive(0, vehicle.getAngle());
+                    watchdogStops++;
+                }
+                if (credits && rx.getReceivedCount() - lastAdvertised >= rx.capacity() / 2) {
+                    emit(down, rx.formatCredit("<CRD:", ">"), now);
+                    lastAdvertised = rx.getReceivedCount();
+                }
+                nextLoop += loopPeriodNanos;
+                if (now - nextLoop > loopPeriodNanos) {
+                    nextLoop = now + loopPeriodNanos;
+                }
+            }
+            if (now - nextStat >= 0) {
+                String stat = vehicle.formatStat();
+                if (credits) {
+                    stat = rx.formatCredit(stat.substring(0, stat.length() - 1) + ":", ">");
+                    lastAdvertised = rx.getReceivedCount();
+                }
+                emit(down, stat, now);
+                statsSent++;
+                nextStat += statPeriodNanos;
+                if (now - nextStat > statPeriodNanos) {
+                    nextStat = now + statPeriodNanos;
+                }
+            }
+            if (down.drain(now, out::put) > 0) {
+                try {
+                    out.writeTo(output);
+                } catch (SocketException socketException) {
+                    return;
+                }
+            }
+            rxOverflowBytes = rx.getOverflowCount();
+            LockSupport.parkNanos(TICK_NANOS);
+        }
+    }
+
+    private static void emit(LinkDirection down, String frame, long nowNanos) {
+        byte[] data = (frame + "\n").getBytes(StandardCharsets.US_ASCII);
+        down.offer(data, 0, data.length, nowNanos);
+    }
+
+    private final class FirmwareHandler implements CommandDecoder.Listener {
+
+        private final LinkDirection down;
+
+        FirmwareHandler(LinkDirection down) {
+            this.down = down;
+        }
+
+        @Override
+        public void onDrive(int sequence, int speed, int angle) {
+            vehicle.drive(speed, angle);
+            handled(sequence);
+        }
+
+        @Override
+        public void onArm(int sequence, int joint, int angle) {
+            vehicle.arm(joint, angle);
+            handled(sequence);
+        }
+
+        @Override
+        public void onArmMove(int sequence, int joint, int angle, int durationMillis,
+                              int profile) {
+            vehicle.armMove(joint, angle, durationMillis, MotionProfile.fromCode(profile),
+                    System.nanoTime());
+            handled(sequence);
+        }
+
+        @Override
+        public void onGripper(int sequence, boolean grab) {
+            vehicle.gripper(grab);
+            handled(sequence);
+        }
+
+        @Override
+        public void onCorrupt() {
+            corruptFrames++;
+        }
+
+        private void handled(int sequence) {
+            framesDecoded++;
+            lastCommandNanos = System.nanoTime();
+            if (sequence != CommandEncoder.NO_SEQUENCE) {
+                emit(down, String.format(Locale.US, "<ACK:%d>", sequence), System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * The Arduino's serial receive ring.
+     */
+    private static final class RxBuffer {
+
+        private final byte[] bytes;
+        private int head;
+        private int count;
+        private long overflowCount;
+        private long receivedCount;
+
+        RxBuffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void offer(byte value) {
+            receivedCount++;
+            if (count == bytes.length) {
+                overflowCount++;
+                return;
+            }
+            bytes[(head + count) % bytes.length] = value;
+            count++;
+        }
+
+        byte take() {
+            byte value = bytes[head];
+            head = (head + 1) % bytes.length;
+            count--;
+            return value;
+        }
+
+        int size() {
+            return count;
+        }
+
+        long getOverflowCount() {
+            return overflowCount;
+        }
+
+        long getReceivedCount() {
+            return receivedCount;
+        }
+
+        int capacity() {
+            return bytes.length;
+        }
+
+        String formatCredit(String prefix, String suffix) {
+            return prefix + (receivedCount & 0xFFFF) + ":" + (bytes.length - count) + suffix;
+        }
+    }
+
+    private static final class OutboundBuffer {
+
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        void put(byte value) {
+            if (length == bytes.length) {
+                byte[] grown = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+            bytes[length++] = value;
+        }
+
+        void writeTo(OutputStream output) throws IOException {
+            output.write(bytes, 0, length);
+            output.flush();
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.arduinobluetoothcontroller.simulator;
+
+import java.util.Random;
+
+/**
+ * One direction of the radio + UART path. Each byte gets a radio delivery time (latency plus
+ * jitter, never reordering) and then waits for the UART, which serialises one byte per ten bit
+ * times. Bytes are held in a bounded ring standing in for the module's internal buffer.
+ */
+final class LinkDirection {
+
+    interface Sink {
+        void accept(byte value);
+    }
+
+    private final byte[] bytes;
+    private final long[] dueNanos;
+    private final long byteNanos;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double dropRate;
+    private final Random random;
+
+    private int head;
+    private int count;
+    private long lastDueNanos;
+    private long uartFreeNanos;
+    private long droppedBytes;
+    private long overflowBytes;
+    private long deliveredBytes;
+
+    LinkDirection(SimulatorConfig config, int capacity, Random random) {
+        this.bytes = new byte[capacity];
+        this.dueNanos = new long[capacity];
+        this.byteNanos = 10_000_000_000L / config.getBaudRate();
+        this.latencyNanos = config.getLatencyMillis() * 1_000_000L;
+        this.jitterNanos = config.getJitterMillis() * 1_000_000L;
+        this.dropRate = config.getDropRate();
+        this.random = random;
+    }
+
+    synchronized void offer(byte[] source, int offset, int length, long nowNanos) {
+        for (int i = 0; i < length; i++) {
+            if (dropRate > 0d && random.nextDouble() < dropRate) {
+                droppedBytes++;
+                continue;
+            }
+            if (count == bytes.length) {
+                overflowBytes++;
+                continue;
+            }
+            long jitter = jitterNanos == 0 ? 0 : (long) (random.nextDouble() * jitterNanos);
+            long due = Math.max(lastDueNanos, nowNanos + latencyNanos + jitter);
+            lastDueNanos = due;
+            int index = (head + count) % bytes.length;
+            bytes[index] = source[offset + i];
+            dueNanos[index] = due;
+            count++;
+        }
+    }
+
+    /**
+     * Hands every byte that has cleared the radio and the UART by {@code nowNanos} to the sink.
+     */
+    synchronized int drain(long nowNanos, Sink sink) {
+        int drained = 0;
+        while (count > 0) {
+            long start = Math.max(dueNanos[head], uartFreeNanos);
+            long done = start + byteNanos;
+            if (done > nowNanos) {
+                break;
+            }
+            uartFreeNanos = done;
+            sink.accept(bytes[head]);
+            head = (head + 1) % bytes.length;
+            count--;
+            drained++;
+        }
+        deliveredBytes += drained;
+        return drained;
+    }
+
+    synchronized int getBacklog() {
+        return count;
+    }
+
+    synchronized long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    synchronized long getOverflowBytes() {
+        return overflowBytes;
+    }
+
+    synchronized long getDeliveredBytes() {
+        return deliveredBytes;
+    }
+}
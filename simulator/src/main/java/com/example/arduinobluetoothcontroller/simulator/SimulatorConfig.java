@@ -0,0 +1,134 @@
+package com.example.arduinobluetoothcontroller.simulator;
+
+/**
+ * Link and firmware parameters. Defaults approximate an HC-05 at 9600 baud feeding an Arduino
+ * Uno's 64-byte serial RX buffer.
+ */
+public class SimulatorConfig {
+
+    private int baudRate = 9600;
+    private int rxBufferSize = 64;
+    private long latencyMillis = 15;
+    private long jitterMillis = 5;
+    private double dropRate;
+    private double statRateHz = 10d;
+    private long loopPeriodMillis = 10;
+    private long seed = 1L;
+    private boolean creditsEnabled;
+    private long watchdogMillis;
+
+    public int getBaudRate() {
+        return baudRate;
+    }
+
+    /**
+     * UART speed in baud; with 8N1 framing each byte costs ten bit times.
+     */
+    public SimulatorConfig setBaudRate(int baudRate) {
+        if (baudRate <= 0) {
+            throw new IllegalArgumentException("Baud rate must be positive.");
+        }
+        this.baudRate = baudRate;
+        return this;
+    }
+
+    public int getRxBufferSize() {
+        return rxBufferSize;
+    }
+
+    public SimulatorConfig setRxBufferSize(int rxBufferSize) {
+        if (rxBufferSize <= 0) {
+            throw new IllegalArgumentException("RX buffer size must be positive.");
+        }
+        this.rxBufferSize = rxBufferSize;
+        return this;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public SimulatorConfig setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = Math.max(0L, latencyMillis);
+        return this;
+    }
+
+    public long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    public SimulatorConfig setJitterMillis(long jitterMillis) {
+        this.jitterMillis = Math.max(0L, jitterMillis);
+        return this;
+    }
+
+    public double getDropRate() {
+        return dropRate;
+    }
+
+    /**
+     * Probability that any single byte is lost on the radio, in either direction.
+     */
+    public SimulatorConfig setDropRate(double dropRate) {
+        this.dropRate = Math.max(0d, Math.min(1d, dropRate));
+        return this;
+    }
+
+    public double getStatRateHz() {
+        return statRateHz;
+    }
+
+    /**
+     * STAT frames per second; zero disables telemetry.
+     */
+    public SimulatorConfig setStatRateHz(double statRateHz) {
+        this.statRateHz = Math.max(0d, statRateHz);
+        return this;
+    }
+
+    public long getLoopPeriodMillis() {
+        return loopPeriodMillis;
+    }
+
+    /**
+     * How often the firmware loop drains its RX buffer; a long loop overflows a small buffer.
+     */
+    public SimulatorConfig setLoopPeriodMillis(long loopPeriodMillis) {
+        this.loopPeriodMillis = Math.max(1L, loopPeriodMillis);
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public SimulatorConfig setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public boolean isCreditsEnabled() {
+        return creditsEnabled;
+    }
+
+    /**
+     * Advertises receive credits on STAT frames and in {@code <CRD:received:free>} frames.
+     */
+    public SimulatorConfig setCreditsEnabled(boolean creditsEnabled) {
+        this.creditsEnabled = creditsEnabled;
+        return this;
+    }
+
+    public long getWatchdogMillis() {
+        return watchdogMillis;
+    }
+
+    /**
+     * Stops the motors when no command has arrived for this long, as firmware that expects a
+     * drive heartbeat would; zero disables it.
+     */
+    public SimulatorConfig setWatchdogMillis(long watchdogMillis) {
+        this.watchdogMillis = Math.max(0L, watchdogMillis);
+        return this;
+    }
+}
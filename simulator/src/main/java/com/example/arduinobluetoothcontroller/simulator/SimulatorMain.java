@@ -0,0 +1,77 @@
+package com.example.arduinobluetoothcontroller.simulator;
+
+import java.util.Locale;
+
+/**
+ * Command-line entry point: {@code ./gradlew :simulator:run --args="--port 7777 --baud 9600"}.
+ * Prints link counters once a second.
+ */
+public final class SimulatorMain {
+
+    private SimulatorMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimulatorConfig config = new SimulatorConfig();
+        int port = 7777;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--baud":
+                    config.setBaudRate(Integer.parseInt(value));
+                    break;
+                case "--rx-buffer":
+                    config.setRxBufferSize(Integer.parseInt(value));
+                    break;
+                case "--latency-ms":
+                    config.setLatencyMillis(Long.parseLong(value));
+                    break;
+                case "--jitter-ms":
+                    config.setJitterMillis(Long.parseLong(value));
+                    break;
+                case "--drop-rate":
+                    config.setDropRate(Double.parseDouble(value));
+                    break;
+                case "--stat-hz":
+                    config.setStatRateHz(Double.parseDouble(value));
+                    break;
+                case "--loop-ms":
+                    config.setLoopPeriodMillis(Long.parseLong(value));
+                    break;
+                case "--seed":
+                    config.setSeed(Long.parseLong(value));
+                    break;
+                case "--watchdog-ms":
+                    config.setWatchdogMillis(Long.parseLong(value));
+                    break;
+                case "--credits":
+                    config.setCreditsEnabled(Boolean.parseBoolean(value));
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+                    return;
+            }
+        }
+
+        FirmwareSimulator simulator = new FirmwareSimulator(config);
+        simulator.start(port);
+        System.out.printf(Locale.US, "Simulating firmware on 127.0.0.1:%d (%d baud, %d byte RX)%n",
+                simulator.getPort(), config.getBaudRate(), config.getRxBufferSize());
+        while (true) {
+            Thread.sleep(1000);
+            VehicleState vehicle = simulator.getVehicle();
+            System.out.printf(Locale.US,
+                    "frames=%d corrupt=%d rxOverflow=%d upDropped=%d backlog=%d stat=%d "
+                            + "watchdog=%d drv=%d:%d%n",
+                    simulator.getFramesDecoded(), simulator.getCorruptFrames(),
+                    simulator.getRxOverflowBytes(), simulator.getUplinkDroppedBytes(),
+                    simulator.getUplinkBacklog(), simulator.getStatsSent(),
+                    simulator.getWatchdogStops(),
+                    vehicle.getSpeed(), vehicle.getAngle());
+        }
+    }
+}
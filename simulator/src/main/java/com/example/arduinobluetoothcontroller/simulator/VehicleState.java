@@ -0,0 +1,150 @@
+package com.example.arduinobluetoothcontroller.simulator;
+
+import com.example.arduinobluetoothcontroller.protocol.MotionProfile;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the simulated firmware has applied, plus the values it reports in STAT frames.
+ */
+public class VehicleState {
+
+    public static final int JOINT_COUNT = 4;
+
+    private static final int NOMINAL_BATTERY_MILLIVOLTS = 7400;
+
+    // Target of each joint, reached at moveStartNanos + moveDurationNanos.
+    private final int[] joints = new int[JOINT_COUNT];
+    private final float[] moveStartAngles = new float[JOINT_COUNT];
+    private final long[] moveStartNanos = new long[JOINT_COUNT];
+    private final long[] moveDurationNanos = new long[JOINT_COUNT];
+    private final MotionProfile[] moveProfiles = new MotionProfile[JOINT_COUNT];
+
+    private int speed;
+    private int angle;
+    private boolean gripperClosed;
+    private float tilt;
+    private long driveCount;
+    private long armCount;
+    private long armMoveCount;
+    private long gripperCount;
+
+    public VehicleState() {
+        reset();
+    }
+
+    public synchronized void reset() {
+        speed = 0;
+        angle = 90;
+        gripperClosed = false;
+        tilt = 0f;
+        for (int i = 0; i < JOINT_COUNT; i++) {
+            joints[i] = 90;
+            moveDurationNanos[i] = 0L;
+            moveProfiles[i] = MotionProfile.LINEAR;
+        }
+        driveCount = 0;
+        armCount = 0;
+        armMoveCount = 0;
+        gripperCount = 0;
+    }
+
+    synchronized void drive(int speed, int angle) {
+        this.speed = Math.max(-255, Math.min(255, speed));
+        this.angle = Math.max(0, Math.min(180, angle));
+        driveCount++;
+    }
+
+    synchronized void arm(int joint, int angle) {
+        if (joint >= 0 && joint < JOINT_COUNT) {
+            joints[joint] = Math.max(0, Math.min(180, angle));
+            moveDurationNanos[joint] = 0L;
+        }
+        armCount++;
+    }
+
+    /**
+     * Interpolates the servo from wherever it is now, as the firmware does.
+     */
+    synchronized void armMove(int joint, int angle, int durationMillis, MotionProfile profile,
+                              long nowNanos) {
+        if (joint >= 0 && joint < JOINT_COUNT) {
+            moveStartAngles[joint] = positionAt(joint, nowNanos);
+            moveStartNanos[joint] = nowNanos;
+            moveDurationNanos[joint] = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            moveProfiles[joint] = profile;
+            joints[joint] = Math.max(0, Math.min(180, angle));
+        }
+        armMoveCount++;
+    }
+
+    synchronized void gripper(boolean closed) {
+        gripperClosed = closed;
+        gripperCount++;
+    }
+
+    /**
+     * Lets the body lean into the current steering and throttle.
+     */
+    synchronized void step() {
+        float target = (angle - 90) / 9f * (Math.abs(speed) / 255f);
+        tilt += (target - tilt) * 0.2f;
+    }
+
+    synchronized String formatStat() {
+        int pwm = Math.abs(speed);
+        // Roughly a volt of sag at full throttle.
+        int battery = NOMINAL_BATTERY_MILLIVOLTS - pwm * 4;
+        return String.format(Locale.US, "<STAT:%d:%.1f:%.2fV>", pwm, tilt, battery / 1000f);
+    }
+
+    public synchronized int getSpeed() {
+        return speed;
+    }
+
+    public synchronized int getAngle() {
+        return angle;
+    }
+
+    /**
+     * Where the joint's servo is now, part way through a move or at its last angle.
+     */
+    public synchronized int getJoint(int joint) {
+        return Math.round(positionAt(joint, System.nanoTime()));
+    }
+
+    public synchronized int getJointTarget(int joint) {
+        return joints[joint];
+    }
+
+    public synchronized boolean isGripperClosed() {
+        return gripperClosed;
+    }
+
+    public synchronized long getDriveCount() {
+        return driveCount;
+    }
+
+    public synchronized long getArmCount() {
+        return armCount;
+    }
+
+    public synchronized long getArmMoveCount() {
+        return armMoveCount;
+    }
+
+    public synchronized long getGripperCount() {
+        return gripperCount;
+    }
+
+    private float positionAt(int joint, long nowNanos) {
+        long duration = moveDurationNanos[joint];
+        long elapsed = nowNanos - moveStartNanos[joint];
+        if (duration <= 0L || elapsed >= duration) {
+            return joints[joint];
+        }
+        float fraction = moveProfiles[joint].position((float) elapsed / duration);
+        return moveStartAngles[joint] + (joints[joint] - moveStartAngles[joint]) * fraction;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.arduinobluetoothcontroller.simulator;
+
+import com.example.arduinobluetoothcontroller.link.LatencySnapshot;
+import com.example.arduinobluetoothcontroller.link.LinkWatchdog;
+import com.example.arduinobluetoothcontroller.link.ReconnectPolicy;
+import com.example.arduinobluetoothcontroller.link.VehicleLink;
+import com.example.arduinobluetoothcontroller.protocol.CommandProtocol;
+import com.example.arduinobluetoothcontroller.protocol.MotionProfile;
+import com.example.arduinobluetoothcontroller.transport.TcpTransport;
+import com.example.arduinobluetoothcontroller.transport.Transport;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FirmwareSimulatorTest {
+
+    private final BlockingQueue<Integer> statPwm = new ArrayBlockingQueue<>(1024);
+    private FirmwareSimulator simulator;
+    private VehicleLink link;
+
+    @After
+    public void tearDown() {
+        if (link != null) {
+            link.disconnect();
+        }
+        if (simulator != null) {
+            simulator.stop();
+        }
+    }
+
+    @Test
+    public void commandsAreAppliedAndTelemetryFlowsBack() throws Exception {
+        connect(new SimulatorConfig()
+                .setBaudRate(115200)
+                .setLatencyMillis(0)
+                .setJitterMillis(0)
+                .setStatRateHz(50));
+
+        link.sendDrive(120, 100);
+        link.sendArm(1, 45);
+        link.sendGripper(true);
+
+        // Discrete arm and gripper commands may overtake the streaming drive command.
+        awaitTrue(() -> simulator.getFramesDecoded() == 3);
+        assertTrue(simulator.getVehicle().isGripperClosed());
+        assertEquals(120, simulator.getVehicle().getSpeed());
+        assertEquals(100, simulator.getVehicle().getAngle());
+        assertEquals(45, simulator.getVehicle().getJoint(1));
+        awaitTrue(() -> statPwm.contains(120));
+        assertEquals(0, simulator.getCorruptFrames());
+    }
+
+    @Test
+    public void sequencedCommandsSeeRadioRoundTrip() throws Exception {
+        connect(new SimulatorConfig()
+                .setBaudRate(115200)
+                .setLatencyMillis(20)
+                .setJitterMillis(0)
+                .setStatRateHz(0));
+        link.setLatencyTrackingEnabled(true);
+
+        for (int i = 0; i < 5; i++) {
+            link.sendArm(0, 10 + i);
+            Thread.sleep(30);
+        }
+
+        awaitTrue(() -> link.getLatencySnapshot().getCount() == 5);
+        LatencySnapshot snapshot = link.getLatencySnapshot();
+        assertTrue(snapshot.getP50Micros() >= TimeUnit.MILLISECONDS.toMicros(40));
+    }
+
+    @Test
+    public void slowFirmwareLoopOverflowsRxBuffer() throws Exception {
+        connect(new SimulatorConfig()
+                .setBaudRate(115200)
+                .setLatencyMillis(0)
+                .setJitterMillis(0)
+                .setRxBufferSize(64)
+                .setLoopPeriodMillis(200)
+                .setStatRateHz(0));
+
+        for (int i = 0; i < 40; i++) {
+            link.sendCommand("<LOG:padding padding " + i + ">");
+        }
+
+        awaitTrue(() -> simulator.getRxOverflowBytes() > 0);
+    }
+
+    @Test
+    public void creditsKeepSlowFirmwareFromOverflowing() throws Exception {
+        connect(new SimulatorConfig()
+                .setBaudRate(115200)
+                .setLatencyMillis(0)
+                .setJitterMillis(0)
+                .setRxBufferSize(64)
+                .setLoopPeriodMillis(100)
+                .setStatRateHz(0)
+                .setCreditsEnabled(true), true);
+        awaitTrue(() -> link.getCreditWindow().isEngaged());
+
+        int total = 0;
+        for (int i = 0; i < 12; i++) {
+            String command = "<LOG:padding padding " + i + ">";
+            total += command.length() + 1;
+            link.sendCommand(command);
+        }
+
+        int expected = total;
+        awaitTrue(() -> link.getCommandWriter().getByteCount() == expected);
+        Thread.sleep(300);
+        assertEquals(0, simulator.getRxOverflowBytes());
+        assertTrue(link.getCreditWindow().getHeldCount() > 0);
+    }
+
+    @Test
+    public void droppedLinkReconnectsAndZeroesDrive() throws Exception {
+        connect(new SimulatorConfig()
+                .setBaudRate(115200)
+                .setLatencyMillis(0)
+                .setJitterMillis(0)
+                .setStatRateHz(20));
+        link.setReconnectPolicy(new ReconnectPolicy(
+                TimeUnit.MILLISECONDS.toNanos(20), TimeUnit.MILLISECONDS.toNanos(200), 0.2d, 5,
+                ReconnectPolicy.ResumeMode.ZERO_DRIVE));
+        link.setArmMovesEnabled(true);
+        link.sendArm(1, 45);
+        link.sendArmMove(2, 120, 300, MotionProfile.TRAPEZOIDAL);
+        link.sendDrive(150, 90);
+        awaitTrue(() -> simulator.getVehicle().getSpeed() == 150);
+        awaitTrue(() -> simulator.getVehicle().getArmMoveCount() == 1);
+
+        simulator.disconnectClient();
+        // So that only what the reconnect replays shows up below.
+        simulator.getVehicle().reset();
+
+        awaitTrue(() -> link.getReconnectCount() == 1 && link.isConnected());
+        assertEquals(2, simulator.getConnectionCount());
+        assertTrue(link.getLastRecoveryNanos() > 0);
+        // Arm targets come back; the drive stays stopped until the throttle returns to zero.
+        awaitTrue(() -> simulator.getVehicle().getJoint(1) == 45);
+        // A planned move is replayed as a move, not as a jump to its target.
+        awaitTrue(() -> simulator.getVehicle().getArmMoveCount() == 1);
+        assertEquals(120, simulator.getVehicle().getJointTarget(2));
+        link.sendDrive(150, 90);
+        Thread.sleep(100);
+        assertEquals(0, simulator.getVehicle().getSpeed());
+        link.sendDrive(0, 90);
+        link.sendDrive(80, 90);
+        awaitTrue(() -> simulator.getVehicle().getSpeed() == 80);
+    }
+
+    @Test
+    public void plannedArmMoveIsInterpolatedByFirmware() throws Exception {
+        connect(new SimulatorConfig()
+                .setBaudRate(115200)
+                .setLatencyMillis(0)
+                .setJitterMillis(0)
+                .setStatRateHz(0));
+        link.setCommandProtocol(CommandProtocol.BINARY);
+
+        // Firmware without MOV support gets the target as a plain ARM frame.
+        link.sendArmMove(1, 60, 400, MotionProfile.S_CURVE);
+        awaitTrue(() -> simulator.getVehicle().getJoint(1) == 60);
+        assertEquals(0, simulator.getVehicle().getArmMoveCount());
+
+        link.setArmMovesEnabled(true);
+        link.sendArmMove(2, 150, 400, MotionProfile.S_CURVE);
+        awaitTrue(() -> simulator.getVehicle().getArmMoveCount() == 1);
+        Thread.sleep(100);
+        int midway = simulator.getVehicle().getJoint(2);
+        assertTrue("Expected the joint part way, was " + midway, midway > 90 && midway < 150);
+        assertEquals(150, simulator.getVehicle().getJointTarget(2));
+
+        link.setCommandProtocol(CommandProtocol.TEXT);
+        link.sendArmMove(2, 30, 0, MotionProfile.LINEAR);
+        awaitTrue(() -> simulator.getVehicle().getJoint(2) == 30);
+        assertEquals(0, simulator.getCorruptFrames());
+    }
+
+    private void connect(SimulatorConfig config) throws Exception {
+        connect(config, false);
+    }
+
+    private void connect(SimulatorConfig config, boolean flowControl) throws Exception {
+        simulator = new FirmwareSimulator(config);
+        simulator.start(0);
+
+        CountDownLatch connected = new CountDownLatch(1);
+        link = new VehicleLink(Runnable::run);
+        link.setFlowControlEnabled(flowControl);
+        link.addTelemetryListener(new VehicleLink.TelemetryListener() {
+            @Override
+            public void onStat(int pwm, float tilt, int batteryMillivolts) {
+                statPwm.offer(pwm);
+            }
+
+            @Override
+            public void onLog(CharSequence message) {
+            }
+
+            @Override
+            public void onUnknownPacket(CharSequence packet) {
+            }
+        });
+        link.addConnectionListener(new VehicleLink.ConnectionListener() {
+            @Override
+            public void onConnected(Transport transport) {
+                connected.countDown();
+            }
+
+            @Override
+            public void onDisconnected() {
+            }
+
+            @Override
+            public void onError(String message) {
+            }
+
+            @Override
+            public void onLinkDegraded(LinkWatchdog.Reason reason) {
+            }
+
+            @Override
+            public void onLinkRecovered() {
+            }
+
+            @Override
+            public void onReconnecting(int attempt, long delayMillis) {
+            }
+        });
+        link.connect(new TcpTransport("127.0.0.1", simulator.getPort()));
+        assertTrue(connected.await(2, TimeUnit.SECONDS));
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void awaitTrue(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.holds()) {
+            assertTrue("Timed out", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}